@@ -0,0 +1,101 @@
+package com.rpolido.springboot2essentials.benchmark;
+
+import com.rpolido.springboot2essentials.Springboot2EssentialsApplication;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.repository.AnimeRepository;
+import com.rpolido.springboot2essentials.security.TokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.servlet.Filter;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Whole AnimeController → AnimeService → AnimeRepository path, security filters included,
+ * against an in-memory H2 database seeded with {@link #ANIMES} animes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AnimeControllerBenchmark {
+
+    private static final int ANIMES = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String authorization;
+    private long animeId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        context = new SpringApplicationBuilder(Springboot2EssentialsApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        // a single benchmark user would otherwise be measured against its own rate limit
+                        "app.rate-limit.enabled=false",
+                        "app.load-shedding.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.SQL=WARN")
+                .run();
+
+        final var animes = context.getBean(AnimeRepository.class).insertAllInBatch(IntStream.range(0, ANIMES)
+                .mapToObj(i -> Anime.builder().name("Hajime no Ippo " + i).build())
+                .collect(Collectors.toList()));
+        animeId = animes.get(ANIMES / 2).getId();
+
+        final var token = context.getBean(TokenService.class).issue(new UsernamePasswordAuthenticationToken(
+                "benchmark", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        authorization = "Bearer " + token;
+
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult findById() throws Exception {
+        return mockMvc.perform(get("/animes/{id}", animeId).header(HttpHeaders.AUTHORIZATION, authorization)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult listPage() throws Exception {
+        return mockMvc.perform(get("/animes").param("page", "3").param("size", "20")
+                .header(HttpHeaders.AUTHORIZATION, authorization)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult findByName() throws Exception {
+        return mockMvc.perform(get("/animes/find").param("name", "Hajime no Ippo 500")
+                .header(HttpHeaders.AUTHORIZATION, authorization)).andReturn();
+    }
+}
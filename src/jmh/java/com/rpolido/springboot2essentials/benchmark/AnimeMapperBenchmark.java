@@ -0,0 +1,33 @@
+package com.rpolido.springboot2essentials.benchmark;
+
+import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeUpdateDTO;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.mapper.AnimeMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnimeMapperBenchmark {
+
+    private final AnimeInsertDTO animeInsertDTO = new AnimeInsertDTO("Hajime no Ippo");
+    private final AnimeUpdateDTO animeUpdateDTO = AnimeUpdateDTO.builder().id(1L).name("Hajime no Ippo 2").build();
+
+    @Benchmark
+    public Anime toAnimeFromInsertDTO() {
+        return AnimeMapper.INSTANCE.toAnime(animeInsertDTO);
+    }
+
+    @Benchmark
+    public Anime toAnimeFromUpdateDTO() {
+        return AnimeMapper.INSTANCE.toAnime(animeUpdateDTO);
+    }
+}
@@ -0,0 +1,105 @@
+package com.rpolido.springboot2essentials.benchmark;
+
+import com.rpolido.springboot2essentials.Springboot2EssentialsApplication;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.repository.AnimeRepository;
+import com.rpolido.springboot2essentials.repository.projection.AnimeSummary;
+import com.rpolido.springboot2essentials.service.AnimeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The same page of {@link #PAGE_SIZE} animes read as entities in a read-write transaction, where
+ * Hibernate keeps a snapshot of every anime and flushes at commit, as entities in a read-only
+ * transaction, and as the {@link AnimeSummary} read models {@link AnimeService#listAll} returns.
+ * Run with {@code -PjmhProfilers=gc} for the bytes allocated per read ({@code gc.alloc.rate.norm}).
+ * How long each read held its connection is logged at the end of the trial, from the
+ * {@code hikaricp.connections.usage} timer.
+ */
+@Log4j2
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimeServiceTransactionBenchmark {
+
+    private static final int ANIMES = 1_000;
+    private static final int PAGE_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+    private AnimeService animeService;
+    private AnimeRepository animeRepository;
+    private TransactionTemplate readWriteTransaction;
+    private TransactionTemplate readOnlyTransaction;
+    private PageRequest page;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        context = new SpringApplicationBuilder(Springboot2EssentialsApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:jmh-transactions;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.com.rpolido.springboot2essentials.benchmark=INFO")
+                .run();
+
+        animeService = context.getBean(AnimeService.class);
+        animeRepository = context.getBean(AnimeRepository.class);
+        readWriteTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        page = PageRequest.of(3, PAGE_SIZE);
+
+        animeRepository.insertAllInBatch(IntStream.range(0, ANIMES)
+                .mapToObj(i -> Anime.builder().name("Hajime no Ippo " + i).build())
+                .collect(Collectors.toList()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        final var usage = context.getBean(MeterRegistry.class).find("hikaricp.connections.usage").timer();
+        if (usage != null) {
+            log.info("Connections held for {} µs on average, {} times",
+                    String.format("%.1f", usage.mean(TimeUnit.MICROSECONDS)), usage.count());
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Anime> listPageInReadWriteTransaction() {
+        return readWriteTransaction.execute(status -> animeRepository.findAll(page));
+    }
+
+    @Benchmark
+    public Page<Anime> listPageInReadOnlyTransaction() {
+        return readOnlyTransaction.execute(status -> animeRepository.findAll(page));
+    }
+
+    @Benchmark
+    public Page<AnimeSummary> listSummaryPage() {
+        return animeService.listAll(page);
+    }
+}
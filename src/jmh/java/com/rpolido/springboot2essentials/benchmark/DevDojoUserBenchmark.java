@@ -0,0 +1,30 @@
+package com.rpolido.springboot2essentials.benchmark;
+
+import com.rpolido.springboot2essentials.domain.DevDojoUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DevDojoUserBenchmark {
+
+    private final DevDojoUser user = DevDojoUser.builder()
+            .name("William Suane")
+            .username("william")
+            .authorities("ROLE_ADMIN,ROLE_USER")
+            .build();
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+}
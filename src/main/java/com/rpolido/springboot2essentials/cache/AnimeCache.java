@@ -0,0 +1,165 @@
+package com.rpolido.springboot2essentials.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import com.rpolido.springboot2essentials.event.CachesStaleEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Size-bounded read-through cache of animes by id. Missing ids are remembered as well, for a
+ * shorter time, so probing an unknown id does not reach the database on every call.
+ * <p>
+ * Misses are loaded outside of Caffeine's compute, which holds a lock on the map for as long as
+ * the loader runs and would pin a virtual thread to its carrier for a whole database round trip.
+ * Concurrent misses on the same id may then both load it. A load that overlaps an eviction is not
+ * cached, as it may have read the row before the change committed.
+ */
+@Component
+public class AnimeCache {
+
+    private final Cache<Long, Optional<Anime>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public AnimeCache(@Value("${app.anime-cache.maximum-size:10000}") long maximumSize,
+                      @Value("${app.anime-cache.time-to-live:10m}") Duration timeToLive,
+                      @Value("${app.anime-cache.not-found-time-to-live:30s}") Duration notFoundTimeToLive,
+                      MeterRegistry meterRegistry) {
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new FoundOrNotFoundExpiry(timeToLive.toNanos(), notFoundTimeToLive.toNanos()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "anime");
+    }
+
+    public Optional<Anime> get(long id, Function<Long, Optional<Anime>> loader) {
+
+        final var cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached.map(AnimeCache::copyOf);
+        }
+
+        final var loadedGeneration = generation.get();
+        final var anime = loader.apply(id).map(AnimeCache::copyOf);
+        putIfUnchanged(Map.of(id, anime), loadedGeneration);
+        return anime.map(AnimeCache::copyOf);
+    }
+
+    /**
+     * The animes for every id, from the cache when present and otherwise from a single call to
+     * {@code loader} with all the misses. Ids the loader does not return are remembered as missing.
+     */
+    public Map<Long, Optional<Anime>> getAll(Collection<Long> ids, Function<List<Long>, List<Anime>> loader) {
+
+        final var animes = new HashMap<>(cache.getAllPresent(ids));
+        final var missingIds = new ArrayList<Long>();
+        ids.stream().distinct().filter(id -> !animes.containsKey(id)).forEach(missingIds::add);
+
+        if (!missingIds.isEmpty()) {
+            final var loadedGeneration = generation.get();
+            final var loaded = new HashMap<Long, Optional<Anime>>();
+            missingIds.forEach(id -> loaded.put(id, Optional.empty()));
+            loader.apply(missingIds).forEach(anime -> loaded.put(anime.getId(), Optional.of(copyOf(anime))));
+
+            putIfUnchanged(loaded, loadedGeneration);
+            animes.putAll(loaded);
+        }
+
+        final var copies = new HashMap<Long, Optional<Anime>>(animes.size());
+        animes.forEach((id, anime) -> copies.put(id, anime.map(AnimeCache::copyOf)));
+        return copies;
+    }
+
+    /**
+     * The version of the cached anime, without loading or copying it. Empty when the id is not cached.
+     */
+    public Optional<Long> getVersionIfPresent(long id) {
+        final var anime = cache.getIfPresent(id);
+        return anime == null ? Optional.empty() : anime.map(Anime::getVersion);
+    }
+
+    public void evict(Iterable<Long> ids) {
+        generation.incrementAndGet();
+        cache.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        evict(event.getIds());
+    }
+
+    @EventListener(CachesStaleEvent.class)
+    public void onCachesStale() {
+        invalidateAll();
+    }
+
+    /**
+     * Caches the loaded animes unless an eviction happened since {@code loadedGeneration}. The
+     * generation is checked again after the put, as an eviction may slip in between.
+     */
+    private void putIfUnchanged(Map<Long, Optional<Anime>> loaded, long loadedGeneration) {
+        if (generation.get() != loadedGeneration) {
+            return;
+        }
+
+        cache.putAll(loaded);
+        if (generation.get() != loadedGeneration) {
+            loaded.forEach((id, anime) -> cache.asMap().remove(id, anime));
+        }
+    }
+
+    private static Anime copyOf(Anime anime) {
+        return anime.toBuilder().build();
+    }
+
+    private static class FoundOrNotFoundExpiry implements Expiry<Long, Optional<Anime>> {
+
+        private final long foundNanos;
+        private final long notFoundNanos;
+
+        FoundOrNotFoundExpiry(long foundNanos, long notFoundNanos) {
+            this.foundNanos = foundNanos;
+            this.notFoundNanos = notFoundNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Long id, Optional<Anime> anime, long currentTime) {
+            return anime.isPresent() ? foundNanos : notFoundNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Optional<Anime> anime, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, anime, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Optional<Anime> anime, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
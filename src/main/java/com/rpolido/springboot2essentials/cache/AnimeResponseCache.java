@@ -0,0 +1,219 @@
+package com.rpolido.springboot2essentials.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import com.rpolido.springboot2essentials.event.CachesStaleEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized list and page responses, kept as JSON bytes and, once a client asks for it, as gzip
+ * bytes too, so serving them again costs neither Jackson nor compression. Any anime change empties
+ * the cache. Bounded by the total size of the JSON it holds.
+ */
+@Component
+public class AnimeResponseCache {
+
+    public static final String ALL = "all";
+
+    private static final Pattern NOT_ACCEPTABLE = Pattern.compile("\\s*q\\s*=\\s*0(\\.0*)?\\s*");
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, SerializedResponse> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter serializationBytesSaved;
+    private final Counter compressionBytesSaved;
+
+    public AnimeResponseCache(ObjectMapper objectMapper,
+                              @Value("${app.anime-response-cache.maximum-weight:64MB}") DataSize maximumWeight,
+                              @Value("${app.anime-response-cache.time-to-live:10m}") Duration timeToLive,
+                              MeterRegistry meterRegistry) {
+
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight.toBytes())
+                .weigher((String key, SerializedResponse response) -> response.getJson().length)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "anime.responses");
+
+        this.serializationBytesSaved = bytesSaved(meterRegistry, "serialization");
+        this.compressionBytesSaved = bytesSaved(meterRegistry, "compression");
+    }
+
+    public static String pageKey(Pageable pageable) {
+        return pageable.isUnpaged()
+                ? "page:unpaged"
+                : "page:" + pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
+
+    /**
+     * The cached response for the key, or the body from the loader serialized and cached. A change
+     * committed while the loader ran keeps the result out of the cache, as it may already be stale.
+     * The generation is checked again after the put: {@link #invalidateAll} bumps it before
+     * clearing, so one that slipped in between is seen and the entry removed.
+     */
+    public <T> SerializedResponse get(String key, Supplier<T> loader, Function<T, String> eTag) {
+
+        final var cached = cache.getIfPresent(key);
+        if (cached != null) {
+            serializationBytesSaved.increment(cached.getJson().length);
+            return cached;
+        }
+
+        final var loadedGeneration = generation.get();
+        final var body = loader.get();
+        final var response = new SerializedResponse(serialize(body), eTag.apply(body));
+
+        if (generation.get() == loadedGeneration) {
+            cache.put(key, response);
+            if (generation.get() != loadedGeneration) {
+                cache.asMap().remove(key, response);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * The gzip bytes of the response, compressed once per cached response.
+     */
+    public byte[] gzip(SerializedResponse response) {
+        final var gzip = response.gzip();
+        compressionBytesSaved.increment(Math.max(0, response.getJson().length - gzip.length));
+        return gzip;
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        invalidateAll();
+    }
+
+    @EventListener(CachesStaleEvent.class)
+    public void onCachesStale() {
+        invalidateAll();
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header accepts gzip, that is lists it, or else {@code *},
+     * without {@code q=0}.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        var anyAccepted = false;
+        for (final var coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            final var parameters = coding.split(";");
+            final var name = parameters[0].trim();
+            final var accepted = parameters.length == 1 || !NOT_ACCEPTABLE.matcher(parameters[1]).matches();
+
+            if ("gzip".equals(name)) {
+                return accepted;
+            }
+            anyAccepted |= "*".equals(name) && accepted;
+        }
+        return anyAccepted;
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Counter bytesSaved(MeterRegistry meterRegistry, String by) {
+        return Counter.builder("anime.responses.bytes.saved")
+                .description("Bytes served from the response cache instead of being serialized, or saved by gzip")
+                .baseUnit("bytes")
+                .tag("by", by)
+                .register(meterRegistry);
+    }
+
+    public static class SerializedResponse {
+
+        private final byte[] json;
+        private final String eTag;
+        private volatile byte[] gzip;
+
+        SerializedResponse(byte[] json, String eTag) {
+            this.json = json;
+            this.eTag = eTag;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Strong ETags must differ between the plain and the gzip representation.
+         */
+        public String getGzipETag() {
+            return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+        }
+
+        private byte[] gzip() {
+            var compressed = gzip;
+            if (compressed == null) {
+                synchronized (this) {
+                    compressed = gzip;
+                    if (compressed == null) {
+                        compressed = compress(json);
+                        gzip = compressed;
+                    }
+                }
+            }
+            return compressed;
+        }
+
+        private static byte[] compress(byte[] json) {
+            final var bytes = new ByteArrayOutputStream(json.length / 4);
+            try (final var gzip = new GZIPOutputStream(bytes) {
+                {
+                    // compressed once and served many times, so the slowest level pays off
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                gzip.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.rpolido.springboot2essentials.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rpolido.springboot2essentials.metrics.TimedMappingJackson2HttpMessageConverter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Latency below the controller: {@code @Timed} service methods, JSON serialization and, through
+ * Spring Boot, every repository call in {@code spring.data.repository.invocations}.
+ * Histograms and SLO buckets are set under {@code management.metrics.distribution}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   MeterRegistry meterRegistry) {
+        return new TimedMappingJackson2HttpMessageConverter(objectMapper, meterRegistry);
+    }
+}
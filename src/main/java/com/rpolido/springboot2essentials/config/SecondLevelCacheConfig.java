@@ -0,0 +1,75 @@
+package com.rpolido.springboot2essentials.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level and query cache regions, held in process by Caffeine through JCache.
+ * Every region is created here with its own size and time to live, then handed to Hibernate,
+ * and monitored as a {@code cache} tagged with its region name. The update timestamps region
+ * is what tells Hibernate a cached query is stale, so it is never expired or evicted.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SecondLevelCacheConfig {
+
+    public static final String ANIME_REGION = "anime";
+    public static final String ANIME_BY_NAME_REGION = "anime-by-name";
+    public static final String DEV_DOJO_USER_REGION = "dev-dojo-user";
+    public static final String DEV_DOJO_USER_BY_USERNAME_REGION = "dev-dojo-user-by-username";
+
+    private static final String DEFAULT_QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${app.second-level-cache.anime.maximum-size:10000}") long animeMaximumSize,
+                                                @Value("${app.second-level-cache.anime.time-to-live:10m}") Duration animeTimeToLive,
+                                                @Value("${app.second-level-cache.dev-dojo-user.maximum-size:1000}") long userMaximumSize,
+                                                @Value("${app.second-level-cache.dev-dojo-user.time-to-live:5m}") Duration userTimeToLive,
+                                                @Value("${app.second-level-cache.queries.maximum-size:1000}") long queriesMaximumSize,
+                                                @Value("${app.second-level-cache.queries.time-to-live:5m}") Duration queriesTimeToLive,
+                                                MeterRegistry meterRegistry) {
+
+        // a manager of its own, so application contexts living side by side never share regions
+        final var cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("urn:second-level-cache:" + UUID.randomUUID()), getClass().getClassLoader());
+
+        createRegion(cacheManager, ANIME_REGION, animeMaximumSize, animeTimeToLive, meterRegistry);
+        createRegion(cacheManager, DEV_DOJO_USER_REGION, userMaximumSize, userTimeToLive, meterRegistry);
+        createRegion(cacheManager, ANIME_BY_NAME_REGION, queriesMaximumSize, queriesTimeToLive, meterRegistry);
+        createRegion(cacheManager, DEV_DOJO_USER_BY_USERNAME_REGION, queriesMaximumSize, queriesTimeToLive, meterRegistry);
+        createRegion(cacheManager, DEFAULT_QUERY_RESULTS_REGION, queriesMaximumSize, queriesTimeToLive, meterRegistry);
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, null, null, meterRegistry);
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheHibernatePropertiesCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private static void createRegion(CacheManager cacheManager, String region, Long maximumSize, Duration timeToLive,
+                                     MeterRegistry meterRegistry) {
+
+        final var configuration = new CaffeineConfiguration<Object, Object>();
+        configuration.setStatisticsEnabled(true);
+        configuration.setMaximumSize(maximumSize == null ? OptionalLong.empty() : OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(timeToLive == null ? OptionalLong.empty() : OptionalLong.of(timeToLive.toNanos()));
+
+        JCacheMetrics.monitor(meterRegistry, cacheManager.createCache(region, configuration));
+    }
+}
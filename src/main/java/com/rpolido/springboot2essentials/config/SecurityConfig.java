@@ -1,8 +1,21 @@
 package com.rpolido.springboot2essentials.config;
 
+import com.rpolido.springboot2essentials.metrics.SqlStatsEndpoint;
+import com.rpolido.springboot2essentials.ratelimit.AdaptiveConcurrencyLimiter;
+import com.rpolido.springboot2essentials.ratelimit.PrincipalRateLimiter;
+import com.rpolido.springboot2essentials.ratelimit.RateLimitFilter;
+import com.rpolido.springboot2essentials.security.DevDojoUserCache;
+import com.rpolido.springboot2essentials.security.MemoizingPasswordEncoder;
+import com.rpolido.springboot2essentials.security.TokenAuthenticationFilter;
+import com.rpolido.springboot2essentials.security.TokenService;
 import com.rpolido.springboot2essentials.service.DevDojoUserDetailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -10,6 +23,8 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.access.intercept.FilterSecurityInterceptor;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
@@ -19,13 +34,22 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final DevDojoUserDetailService devDojoUserDetailsService;
+    private final DevDojoUserCache devDojoUserCache;
+    private final MemoizingPasswordEncoder memoizingPasswordEncoder;
+    private final TokenService tokenService;
+    private final PrincipalRateLimiter principalRateLimiter;
+    private final AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
 
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http.csrf().disable()
 //                csrf().csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
+                .addFilterAfter(new RateLimitFilter(principalRateLimiter, adaptiveConcurrencyLimiter), FilterSecurityInterceptor.class)
                 .authorizeRequests()
+                .antMatchers(HttpMethod.POST, "/auth/token").permitAll()
                 .antMatchers("/animes/admin/**").hasRole("ADMIN")
+                .requestMatchers(EndpointRequest.to(SqlStatsEndpoint.class)).hasRole("ADMIN")
                 .antMatchers("/animes/**").hasRole("USER")
                 .anyRequest()
                 .authenticated()
@@ -35,6 +59,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .httpBasic();
     }
 
+    @Bean
+    @Override
+    public AuthenticationManager authenticationManagerBean() throws Exception {
+        return super.authenticationManagerBean();
+    }
+
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
         PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
@@ -49,7 +79,11 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .password(passwordEncoder.encode("academy"))
                 .roles("USER");
 
-        auth.userDetailsService(devDojoUserDetailsService)
-                .passwordEncoder(passwordEncoder);
+        final var devDojoAuthenticationProvider = new DaoAuthenticationProvider();
+        devDojoAuthenticationProvider.setUserDetailsService(devDojoUserDetailsService);
+        devDojoAuthenticationProvider.setUserCache(devDojoUserCache);
+        devDojoAuthenticationProvider.setPasswordEncoder(memoizingPasswordEncoder);
+
+        auth.authenticationProvider(devDojoAuthenticationProvider);
     }
 }
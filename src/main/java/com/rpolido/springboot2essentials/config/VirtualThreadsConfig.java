@@ -0,0 +1,55 @@
+package com.rpolido.springboot2essentials.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every Tomcat request, and the MVC async work such as the NDJSON stream, on its own virtual
+ * thread instead of the 200 platform threads of the default pool, so requests blocked on JDBC no
+ * longer exhaust the pool. Only active with {@code app.virtual-threads.enabled=true} and a Java 21
+ * runtime. The classes still target Java 17, so the executor is looked up reflectively.
+ * <p>
+ * Concurrency is then bounded by the Hikari pool instead of the thread pool: requests past
+ * {@code spring.datasource.hikari.maximum-pool-size} park cheaply while waiting for a connection
+ * and give up after {@code connection-timeout}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+@Log4j2
+public class VirtualThreadsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            final var executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.info("Serving requests on virtual threads");
+            return executor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("app.virtual-threads.enabled needs a Java 21 runtime, running on " + Runtime.version(), e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer(ExecutorService virtualThreadPerTaskExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadPerTaskExecutor);
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadPerTaskExecutor) {
+        return new TaskExecutorAdapter(virtualThreadPerTaskExecutor);
+    }
+}
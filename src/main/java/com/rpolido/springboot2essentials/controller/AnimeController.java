@@ -1,17 +1,38 @@
 package com.rpolido.springboot2essentials.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rpolido.springboot2essentials.cache.AnimeResponseCache;
+import com.rpolido.springboot2essentials.controller.dto.AnimeBulkItemResultDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeBulkMutationResultDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeIngestionStatusDTO;
 import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeLookupItemDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeSearchHitDTO;
 import com.rpolido.springboot2essentials.controller.dto.AnimeUpdateDTO;
 import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.exception.BadRequestException;
+import com.rpolido.springboot2essentials.ingestion.AnimeIngestionQueue;
+import com.rpolido.springboot2essentials.repository.projection.AnimeSummary;
 import com.rpolido.springboot2essentials.service.AnimeService;
+import com.rpolido.springboot2essentials.util.AnimeETags;
+import com.rpolido.springboot2essentials.wrapper.CursorResponse;
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springdoc.api.annotations.ParameterObject;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,38 +42,151 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 
 import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 
 @RestController
 @RequestMapping("animes")
+@Timed(percentiles = {0.5, 0.95, 0.99}, histogram = true)
 @RequiredArgsConstructor
 @Log4j2
 public class AnimeController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+    private static final int MAX_AUTOCOMPLETE_LIMIT = 50;
+    // Lets clients keep responses but makes them revalidate with the ETag, instead of no-store
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    private static final String PREFER = "Prefer";
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final String STREAM_TIMEOUT = AnimeController.class.getName() + ".streamTimeout";
+    private static final long NO_TIMEOUT = -1;
+
     private final AnimeService animeService;
+    private final ObjectMapper objectMapper;
+    private final AnimeResponseCache responseCache;
+    private final ObjectProvider<AnimeIngestionQueue> ingestionQueue;
 
     @GetMapping
-    @Operation(summary = "List all animes paginated", description = "The default size is 20, use the parameter size to change the default value", tags = {"anime"})
-    public ResponseEntity<Page<Anime>> list(@ParameterObject Pageable pageable) {
-        return ResponseEntity.ok(animeService.listAll(pageable));
+    @Operation(summary = "List all animes paginated", description = "The default size is 20, use the parameter size to change the default value. The page is served pre-serialized, gzip compressed when the client accepts it, until an anime changes", tags = {"anime"})
+    @ApiResponse(responseCode = "200", description = "Successful Operation", content = @Content(schema = @Schema(implementation = Page.class)))
+    public ResponseEntity<byte[]> list(@ParameterObject Pageable pageable,
+                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        final var response = responseCache.get(AnimeResponseCache.pageKey(pageable),
+                () -> animeService.listAll(pageable), AnimeETags::of);
+
+        return serializedResponse(response, acceptEncoding);
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Find many animes by id", description = "Takes up to app.anime-lookup.max-ids comma separated ids, served from the cache and a single query for the misses. Results follow the request order, ids that do not exist come back as NOT_FOUND", tags = {"anime"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful Operation"),
+            @ApiResponse(responseCode = "400", description = "When there are too many ids")
+    })
+    public ResponseEntity<List<AnimeLookupItemDTO>> findAllById(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(animeService.findAllById(ids));
+    }
+
+    @GetMapping(path = "/cursor")
+    @Operation(summary = "List animes using keyset pagination", description = "Pass the nextCursor of the previous response as the parameter after to fetch the next slice, the default size is 5", tags = {"anime"})
+    public ResponseEntity<CursorResponse<AnimeSummary>> listByCursor(@RequestParam(required = false) String after,
+                                                                     @RequestParam(defaultValue = "5") int size) {
+
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BadRequestException("The size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+
+        final var afterId = after == null ? 0L : CursorResponse.decodeCursor(after);
+
+        return ResponseEntity.ok(CursorResponse.of(animeService.listAfter(afterId, size), AnimeSummary::id));
     }
 
     @GetMapping(path = "/all")
-    public ResponseEntity<List<Anime>> listAll() {
-        return ResponseEntity.ok(animeService.listAllNonPaged());
+    @Operation(summary = "List every anime", description = "Served pre-serialized, gzip compressed when the client accepts it, until an anime changes", tags = {"anime"})
+    @ApiResponse(responseCode = "200", description = "Successful Operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = AnimeSummary.class))))
+    public ResponseEntity<byte[]> listAll(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        final var response = responseCache.get(AnimeResponseCache.ALL,
+                animeService::listAllNonPaged, AnimeETags::of);
+
+        return serializedResponse(response, acceptEncoding);
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all animes as NDJSON", description = "Writes one anime per line while the rows are read, keeping memory flat whatever the table size", tags = {"anime"})
+    public ResponseEntity<StreamingResponseBody> stream(NativeWebRequest request) {
+
+        // the stream lasts as long as the table takes to read, so it is exempt from the async request timeout
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(STREAM_TIMEOUT, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest asyncRequest, Callable<T> task) {
+                ((AsyncWebRequest) asyncRequest).setTimeout(NO_TIMEOUT);
+            }
+        });
+
+        final var writer = objectMapper.writerFor(AnimeSummary.class);
+
+        final StreamingResponseBody body = outputStream -> animeService.streamAll(anime -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(anime));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping(path = "/{id}")
-    public ResponseEntity<Anime> findById(@PathVariable long id) {
-        return ResponseEntity.ok(animeService.findByIdOrThrowBadRequestException(id));
+    @Operation(summary = "Find an anime by id", description = "Send the ETag of a previous response as If-None-Match to get a 304 without the anime being loaded or serialized", tags = {"anime"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful Operation"),
+            @ApiResponse(responseCode = "304", description = "When the anime did not change since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "When Anime Does Not Exist in The Database")
+    })
+    public ResponseEntity<Anime> findById(@PathVariable long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        if (ifNoneMatch != null) {
+            final var eTag = animeService.findVersion(id).map(version -> AnimeETags.of(id, version));
+            if (eTag.isPresent() && AnimeETags.matchesAny(ifNoneMatch, eTag.get())) {
+                return ResponseEntity.status(NOT_MODIFIED)
+                        .cacheControl(REVALIDATE)
+                        .eTag(eTag.get())
+                        .build();
+            }
+        }
+
+        final var anime = animeService.findByIdOrThrowBadRequestException(id);
+
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .eTag(AnimeETags.of(anime))
+                .body(anime);
     }
 
     @GetMapping(path = "by-id/{id}")
@@ -69,15 +203,109 @@ public class AnimeController {
         return ResponseEntity.ok(animeService.findByName(name));
     }
 
+    @GetMapping(path = "/search")
+    @Operation(summary = "Ranked and paginated search by name", description = "Exact matches first, then word prefixes, then names containing the query and finally similar names, served from the in-memory search index", tags = {"anime"})
+    public ResponseEntity<Page<AnimeSearchHitDTO>> search(@RequestParam String q, @ParameterObject Pageable pageable) {
+        return ResponseEntity.ok(animeService.search(q, pageable));
+    }
+
+    @GetMapping(path = "/autocomplete")
+    @Operation(summary = "Names with a word starting with the prefix", description = "Served from the in-memory search index without touching the database", tags = {"anime"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful Operation"),
+            @ApiResponse(responseCode = "400", description = "When limit is out of range")
+    })
+    public ResponseEntity<List<AnimeSearchHitDTO>> autocomplete(@RequestParam String prefix,
+                                                                @RequestParam(defaultValue = "10") int limit) {
+
+        if (limit < 1 || limit > MAX_AUTOCOMPLETE_LIMIT) {
+            throw new BadRequestException("The limit must be between 1 and " + MAX_AUTOCOMPLETE_LIMIT);
+        }
+
+        return ResponseEntity.ok(animeService.autocomplete(prefix, limit));
+    }
+
     @PostMapping
-    public ResponseEntity<Anime> save(@RequestBody @Valid AnimeInsertDTO anime) {
-        return new ResponseEntity<>(animeService.save(anime), CREATED);
+    @Operation(summary = "Insert an anime", description = "Send Prefer: respond-async to queue it to be inserted in a later batch, the answer then comes right away with a tracking id to poll at /animes/ingestions/{id}. Instances without app.anime-ingestion.enabled insert it right away and answer 201", tags = {"anime"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "When the anime was inserted"),
+            @ApiResponse(responseCode = "202", description = "When the anime was queued"),
+            @ApiResponse(responseCode = "400", description = "When the anime is invalid"),
+            @ApiResponse(responseCode = "429", description = "When the queue is full, retry after the Retry-After header")
+    })
+    public ResponseEntity<?> save(@RequestBody @Valid AnimeInsertDTO anime,
+                                  @RequestHeader(value = PREFER, required = false) String prefer) {
+
+        final var queue = prefersRespondAsync(prefer) ? ingestionQueue.getIfAvailable() : null;
+        if (queue == null) {
+            return new ResponseEntity<>(animeService.save(anime), CREATED);
+        }
+
+        final var status = queue.accept(anime);
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/animes/ingestions/" + status.getId()))
+                .header("Preference-Applied", RESPOND_ASYNC)
+                .body(status);
+    }
+
+    @GetMapping(path = "/ingestions/{id}")
+    @Operation(summary = "Status of a queued anime", description = "QUEUED until the batch holding it is stored, then CREATED with the anime id, INVALID or FAILED with a message", tags = {"anime"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful Operation"),
+            @ApiResponse(responseCode = "400", description = "When the tracking id is unknown or expired")
+    })
+    public ResponseEntity<AnimeIngestionStatusDTO> findIngestion(@PathVariable String id) {
+
+        return ResponseEntity.ok(Optional.ofNullable(ingestionQueue.getIfAvailable())
+                .flatMap(queue -> queue.status(id))
+                .orElseThrow(() -> new BadRequestException("Ingestion not Found")));
+    }
+
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Insert many animes at once", description = "Each anime is validated on its own and the valid ones are stored in JDBC batches, the response has one result per item in request order", tags = {"anime"})
+    public ResponseEntity<List<AnimeBulkItemResultDTO>> saveAll(@RequestBody List<AnimeInsertDTO> animes) {
+        return ResponseEntity.ok(animeService.saveAll(animes.iterator()));
+    }
+
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Insert many animes from an NDJSON body", description = "One anime per line, read while it is being stored so the body is never held in memory", tags = {"anime"})
+    public ResponseEntity<List<AnimeBulkItemResultDTO>> saveAllFromNdjson(InputStream body) throws IOException {
+        try (final MappingIterator<AnimeInsertDTO> animes = objectMapper.readerFor(AnimeInsertDTO.class).readValues(body)) {
+            return ResponseEntity.ok(animeService.saveAll(animes));
+        }
     }
 
     @PutMapping
-    public ResponseEntity<Void> replace(@RequestBody AnimeUpdateDTO anime) {
-        animeService.replace(anime);
-        return new ResponseEntity<>(NO_CONTENT);
+    @Operation(summary = "Replace an anime", description = "Send the ETag of the anime as If-Match to only replace it when it did not change since, the response carries the new ETag", tags = {"anime"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Successful Operation"),
+            @ApiResponse(responseCode = "400", description = "When the id is missing or Anime Does Not Exist in The Database"),
+            @ApiResponse(responseCode = "409", description = "When another request replaced the anime at the same time"),
+            @ApiResponse(responseCode = "412", description = "When the anime changed since the ETag in If-Match")
+    })
+    public ResponseEntity<Void> replace(@RequestBody AnimeUpdateDTO anime,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+        if (anime.getId() == null) {
+            throw new BadRequestException("The anime id cannot be empty");
+        }
+
+        final Long requiredVersion = ifMatch == null || "*".equals(ifMatch.trim())
+                ? null
+                : AnimeETags.requiredVersion(ifMatch, anime.getId());
+
+        final var replacedAnime = animeService.replace(anime, requiredVersion);
+
+        return ResponseEntity.status(NO_CONTENT)
+                .eTag(AnimeETags.of(replacedAnime))
+                .build();
+    }
+
+    @PutMapping(path = "/bulk")
+    @Operation(summary = "Rename many animes at once", description = "Runs one existence query and one JDBC batch of updates, ids that do not exist are returned in notFound and animes that fail validation in invalid, by index", tags = {"anime"})
+    public ResponseEntity<AnimeBulkMutationResultDTO> replaceAll(@RequestBody List<AnimeUpdateDTO> animes) {
+        return ResponseEntity.ok(animeService.replaceAll(animes));
     }
 
     @DeleteMapping(path = "/admin/{id}")
@@ -89,4 +317,45 @@ public class AnimeController {
         animeService.delete(id);
         return new ResponseEntity<>(NO_CONTENT);
     }
+
+    @DeleteMapping(path = "/admin/bulk")
+    @Operation(summary = "Delete many animes at once", description = "Runs a single delete where id in statement, ids that do not exist are returned in notFound", tags = {"anime"})
+    public ResponseEntity<AnimeBulkMutationResultDTO> deleteAll(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(animeService.deleteAll(ids));
+    }
+
+    /**
+     * Whether a {@code Prefer} header (RFC 7240) asks for {@code respond-async}: preferences are
+     * comma separated, may carry a value or parameters, and their names are case-insensitive.
+     */
+    static boolean prefersRespondAsync(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+
+        for (final var preference : prefer.split(",")) {
+            final var name = preference.split("[;=]", 2)[0].trim();
+            if (RESPOND_ASYNC.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity<byte[]> serializedResponse(AnimeResponseCache.SerializedResponse response, String acceptEncoding) {
+
+        final var builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (AnimeResponseCache.acceptsGzip(acceptEncoding)) {
+            return builder.eTag(response.getGzipETag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(responseCache.gzip(response));
+        }
+
+        return builder.eTag(response.getETag())
+                .body(response.getJson());
+    }
 }
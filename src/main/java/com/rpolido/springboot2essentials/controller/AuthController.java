@@ -0,0 +1,45 @@
+package com.rpolido.springboot2essentials.controller;
+
+import com.rpolido.springboot2essentials.controller.dto.TokenRequestDTO;
+import com.rpolido.springboot2essentials.controller.dto.TokenResponseDTO;
+import com.rpolido.springboot2essentials.security.TokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("auth")
+@RequiredArgsConstructor
+public class AuthController {
+
+    private final AuthenticationManager authenticationManager;
+    private final TokenService tokenService;
+
+    @PostMapping(path = "/token")
+    @Operation(summary = "Exchange username and password for a signed token", description = "Send the token as Authorization: Bearer <token> on the next requests", tags = {"auth"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful Operation"),
+            @ApiResponse(responseCode = "401", description = "When the credentials are invalid")
+    })
+    public ResponseEntity<TokenResponseDTO> token(@RequestBody @Valid TokenRequestDTO tokenRequest) {
+
+        final var authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(tokenRequest.getUsername(), tokenRequest.getPassword()));
+
+        return ResponseEntity.ok(TokenResponseDTO.builder()
+                .accessToken(tokenService.issue(authentication))
+                .tokenType("Bearer")
+                .expiresIn(tokenService.getTimeToLive().toSeconds())
+                .build());
+    }
+}
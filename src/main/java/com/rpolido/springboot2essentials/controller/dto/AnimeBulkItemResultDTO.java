@@ -0,0 +1,24 @@
+package com.rpolido.springboot2essentials.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeBulkItemResultDTO {
+
+    private int index;
+    private Status status;
+    private Long id;
+    private String message;
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        FAILED
+    }
+}
@@ -0,0 +1,24 @@
+package com.rpolido.springboot2essentials.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeBulkMutationResultDTO {
+
+    private int affected;
+    private List<Long> notFound;
+
+    /**
+     * The items rejected by validation, each with its index in the request, left untouched.
+     */
+    @Builder.Default
+    private List<AnimeBulkItemResultDTO> invalid = List.of();
+}
@@ -0,0 +1,25 @@
+package com.rpolido.springboot2essentials.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeIngestionStatusDTO {
+
+    private String id;
+    private Status status;
+    private Long animeId;
+    private String message;
+
+    public enum Status {
+        QUEUED,
+        CREATED,
+        INVALID,
+        FAILED
+    }
+}
@@ -0,0 +1,23 @@
+package com.rpolido.springboot2essentials.controller.dto;
+
+import com.rpolido.springboot2essentials.domain.Anime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeLookupItemDTO {
+
+    private long id;
+    private Status status;
+    private Anime anime;
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND
+    }
+}
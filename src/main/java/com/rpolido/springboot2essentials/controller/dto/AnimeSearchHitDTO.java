@@ -0,0 +1,17 @@
+package com.rpolido.springboot2essentials.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeSearchHitDTO {
+
+    private long id;
+    private String name;
+    private double score;
+}
@@ -3,11 +3,17 @@ package com.rpolido.springboot2essentials.controller.dto;
 import lombok.Builder;
 import lombok.Data;
 
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
 @Data
 @Builder
 public class AnimeUpdateDTO {
 
-    private long id;
+    @NotNull(message = "The anime id cannot be empty")
+    private Long id;
+
+    @NotEmpty(message = "The anime name cannot be empty")
     private String name;
 
 }
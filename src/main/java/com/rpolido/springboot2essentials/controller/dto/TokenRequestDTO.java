@@ -0,0 +1,24 @@
+package com.rpolido.springboot2essentials.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRequestDTO {
+
+    @NotEmpty(message = "The username cannot be empty")
+    @Schema(description = "The user's username", example = "devdojo", required = true)
+    private String username;
+
+    @NotEmpty(message = "The password cannot be empty")
+    @Schema(description = "The user's password", example = "academy", required = true)
+    private String password;
+}
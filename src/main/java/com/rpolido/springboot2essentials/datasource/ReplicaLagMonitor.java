@@ -0,0 +1,102 @@
+package com.rpolido.springboot2essentials.datasource;
+
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import com.rpolido.springboot2essentials.event.CachesStaleEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Decides whether read-only transactions may run on the read replica. Every
+ * {@code lag-check-interval} the time is stamped in the replica_heartbeat row of the primary and
+ * read back from the replica, the difference being the replica lag, to within one interval. The
+ * replica is used while that lag is at most {@code max-lag}, and not at all while it is larger or
+ * unknown because the replica is down.
+ * <p>
+ * Reads are also kept on the primary for {@code max-lag} plus one interval after any anime
+ * changes, here or on another instance, as the replica may not have the change yet and the caches
+ * filled by those reads would otherwise keep the old animes until they expire.
+ */
+@Log4j2
+public class ReplicaLagMonitor {
+
+    private static final String UPDATE_SQL = "update replica_heartbeat set beat_at = ? where id = 1";
+    private static final String INSERT_SQL = "insert into replica_heartbeat (id, beat_at) values (1, ?)";
+    private static final String SELECT_SQL = "select beat_at from replica_heartbeat where id = 1";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+    private final long primaryOnlyNanos;
+
+    private volatile Duration lag;
+    private volatile boolean replicaUsable;
+    private volatile long primaryOnlyUntil = System.nanoTime();
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, Duration checkInterval,
+                             MeterRegistry meterRegistry) {
+
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLag = maxLag;
+        this.primaryOnlyNanos = maxLag.plus(checkInterval).toNanos();
+
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lag == null ? Double.NaN : monitor.lag.toMillis() / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, monitor -> monitor.replicaUsable ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a read-only transaction starting now may run on the replica.
+     */
+    public boolean isReplicaUsable() {
+        return replicaUsable && System.nanoTime() - primaryOnlyUntil >= 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval:1s}")
+    public void check() {
+        final var now = Instant.now();
+        try {
+            if (primary.update(UPDATE_SQL, Timestamp.from(now)) == 0) {
+                primary.update(INSERT_SQL, Timestamp.from(now));
+            }
+            final var beat = replica.queryForObject(SELECT_SQL, Timestamp.class);
+            lag = beat == null ? null : Duration.between(beat.toInstant(), now);
+        } catch (DataAccessException e) {
+            if (lag != null || replicaUsable) {
+                log.warn("Could not measure the replica lag, reading from the primary", e);
+            }
+            lag = null;
+        }
+
+        final var usable = lag != null && lag.compareTo(maxLag) <= 0;
+        if (usable != replicaUsable) {
+            log.info(usable ? "Reading from the replica, {} behind" : "Reading from the primary, the replica is {} behind",
+                    lag == null ? "unknown" : lag);
+        }
+        replicaUsable = usable;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        primaryOnly();
+    }
+
+    @EventListener(CachesStaleEvent.class)
+    public void primaryOnly() {
+        primaryOnlyUntil = System.nanoTime() + primaryOnlyNanos;
+    }
+}
@@ -1,27 +1,47 @@
 package com.rpolido.springboot2essentials.domain;
 
+import com.rpolido.springboot2essentials.config.SecondLevelCacheConfig;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.NotEmpty;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.ANIME_REGION)
+@Table(indexes = @Index(name = "idx_anime_name", columnList = "name"))
 @Builder(toBuilder = true)
 public class Anime {
 
     @Id
+    @org.springframework.data.annotation.Id // identifier for the R2DBC mapping of the reactive variant
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @NotEmpty(message = "The anime name cannot be empty")
     private String name;
+
+    /**
+     * Incremented on every write, guards replaces against lost updates and backs the ETags.
+     */
+    @Version
+    @org.springframework.data.annotation.Version
+    @Column(nullable = false)
+    private Long version;
 }
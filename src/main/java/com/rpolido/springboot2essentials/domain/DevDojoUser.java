@@ -1,27 +1,40 @@
 package com.rpolido.springboot2essentials.domain;
 
-import lombok.AllArgsConstructor;
+import com.rpolido.springboot2essentials.config.SecondLevelCacheConfig;
+import com.rpolido.springboot2essentials.security.DevDojoUserCacheInvalidator;
+import com.rpolido.springboot2essentials.security.GrantedAuthorities;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotEmpty;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.Set;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.DEV_DOJO_USER_REGION)
+@EntityListeners(DevDojoUserCacheInvalidator.class)
 public class DevDojoUser implements UserDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,11 +46,36 @@ public class DevDojoUser implements UserDetails {
     private String password;
     private String authorities;
 
+    // resolved once per load instead of on every authorization check
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Set<GrantedAuthority> grantedAuthorities = Collections.emptySet();
+
+    @Builder
+    public DevDojoUser(Long id, String name, String username, String password, String authorities) {
+        this.id = id;
+        this.name = name;
+        this.username = username;
+        this.password = password;
+        setAuthorities(authorities);
+    }
+
+    public void setAuthorities(String authorities) {
+        this.authorities = authorities;
+        this.grantedAuthorities = GrantedAuthorities.fromCommaSeparated(authorities);
+    }
+
+    @PostLoad
+    void resolveAuthorities() {
+        this.grantedAuthorities = GrantedAuthorities.fromCommaSeparated(authorities);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Arrays.stream(authorities.split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        return grantedAuthorities;
     }
 
     @Override
@@ -0,0 +1,58 @@
+package com.rpolido.springboot2essentials.domain;
+
+import com.rpolido.springboot2essentials.invalidation.InvalidationMessage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Row of the change log the instances use to invalidate each other's caches. Written and read
+ * with plain JDBC by {@code JdbcInvalidationTransport}, mapped here so the table is created and
+ * updated with the others.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "entity_change", indexes = @Index(name = "idx_entity_change_created_at", columnList = "created_at"))
+@Builder
+public class EntityChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String nodeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private InvalidationMessage.Entity entity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private InvalidationMessage.Change changeType;
+
+    /**
+     * Comma separated ids of the changed rows.
+     */
+    @Lob
+    @Column(nullable = false)
+    private String entityIds;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
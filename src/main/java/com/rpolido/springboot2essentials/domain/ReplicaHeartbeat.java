@@ -0,0 +1,30 @@
+package com.rpolido.springboot2essentials.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Single row the instances keep stamping on the primary, read back on the read replica to tell
+ * how far behind it is. Written and read with plain JDBC by {@code ReplicaLagMonitor}, mapped
+ * here so the table is created with the others and replicated like them.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "replica_heartbeat")
+public class ReplicaHeartbeat {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Instant beatAt;
+}
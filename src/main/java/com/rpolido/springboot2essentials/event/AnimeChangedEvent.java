@@ -0,0 +1,41 @@
+package com.rpolido.springboot2essentials.event;
+
+import com.rpolido.springboot2essentials.domain.Anime;
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Published by the service layer after animes are written, so caches and indexes can follow.
+ * Saved events carry the written state, deleted events only the ids. Remote events replay a
+ * change another instance made, as received by the {@code InvalidationBus}.
+ */
+@Value
+public class AnimeChangedEvent {
+
+    ChangeType type;
+    List<Anime> animes;
+    List<Long> ids;
+    boolean remote;
+
+    public static AnimeChangedEvent saved(Collection<Anime> animes) {
+        return new AnimeChangedEvent(ChangeType.SAVED, List.copyOf(animes),
+                animes.stream().map(Anime::getId).filter(Objects::nonNull).collect(Collectors.toUnmodifiableList()), false);
+    }
+
+    public static AnimeChangedEvent deleted(Collection<Long> ids) {
+        return new AnimeChangedEvent(ChangeType.DELETED, List.of(), List.copyOf(ids), false);
+    }
+
+    public AnimeChangedEvent asRemote() {
+        return new AnimeChangedEvent(type, animes, ids, true);
+    }
+
+    public enum ChangeType {
+        SAVED,
+        DELETED
+    }
+}
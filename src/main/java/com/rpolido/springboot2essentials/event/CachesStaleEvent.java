@@ -0,0 +1,9 @@
+package com.rpolido.springboot2essentials.event;
+
+/**
+ * Published when this instance may have missed changes made by other instances, because it could
+ * not read the invalidation bus for longer than the staleness bound, and again once it can. Every
+ * local cache and index drops what it holds, so nothing older than the bound is served.
+ */
+public class CachesStaleEvent {
+}
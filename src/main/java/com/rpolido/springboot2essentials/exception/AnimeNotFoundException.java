@@ -0,0 +1,17 @@
+package com.rpolido.springboot2essentials.exception;
+
+/**
+ * Thrown for every id that has no anime, which scanners and bad clients make the most common
+ * error. It never captures a stack trace nor suppressed exceptions, so a single shared instance
+ * is thrown, and the handler answers it with a pre-serialized body.
+ */
+public final class AnimeNotFoundException extends BadRequestException {
+
+    public static final String MESSAGE = "Anime not Found";
+
+    public static final AnimeNotFoundException INSTANCE = new AnimeNotFoundException();
+
+    private AnimeNotFoundException() {
+        super(MESSAGE, false);
+    }
+}
@@ -0,0 +1,13 @@
+package com.rpolido.springboot2essentials.exception;
+
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+
+@ResponseStatus(PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,60 @@
+package com.rpolido.springboot2essentials.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rpolido.springboot2essentials.exception.ExceptionDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * JSON body of an {@link ExceptionDetails} serialized once, with everything but the timestamp.
+ * Rendering only copies the two cached halves around the formatted timestamp, in the same ISO
+ * format Jackson writes for the details built on each request.
+ */
+public final class ErrorBodyTemplate {
+
+    private static final String TIMESTAMP_PLACEHOLDER = "\"timestamp\":null";
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    private ErrorBodyTemplate(byte[] prefix, byte[] suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Template for {@code details}, which must not have a timestamp set.
+     */
+    public static ErrorBodyTemplate of(ExceptionDetails details) {
+        final String json;
+        try {
+            json = new ObjectMapper().writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize " + details, e);
+        }
+
+        final var placeholder = json.indexOf(TIMESTAMP_PLACEHOLDER);
+        if (placeholder < 0) {
+            throw new IllegalArgumentException("The details must not have a timestamp: " + json);
+        }
+
+        final var timestampValue = placeholder + TIMESTAMP_PLACEHOLDER.length() - "null".length();
+        return new ErrorBodyTemplate(
+                (json.substring(0, timestampValue) + '"').getBytes(StandardCharsets.UTF_8),
+                ('"' + json.substring(placeholder + TIMESTAMP_PLACEHOLDER.length())).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public byte[] render(LocalDateTime timestamp) {
+        final var formatted = TIMESTAMP_FORMAT.format(timestamp).getBytes(StandardCharsets.US_ASCII);
+
+        final var body = new byte[prefix.length + formatted.length + suffix.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        System.arraycopy(formatted, 0, body, prefix.length, formatted.length);
+        System.arraycopy(suffix, 0, body, prefix.length + formatted.length, suffix.length);
+        return body;
+    }
+}
@@ -1,13 +1,20 @@
 package com.rpolido.springboot2essentials.handler;
 
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.rpolido.springboot2essentials.exception.AnimeNotFoundException;
 import com.rpolido.springboot2essentials.exception.BadRequestException;
 import com.rpolido.springboot2essentials.exception.BadRequestExceptionDetails;
 import com.rpolido.springboot2essentials.exception.ExceptionDetails;
+import com.rpolido.springboot2essentials.exception.PreconditionFailedException;
+import com.rpolido.springboot2essentials.exception.TooManyRequestsException;
 import com.rpolido.springboot2essentials.exception.ValidationExceptionDetails;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,6 +28,25 @@ import java.util.stream.Collectors;
 @ControllerAdvice
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private static final ErrorBodyTemplate ANIME_NOT_FOUND = ErrorBodyTemplate.of(BadRequestExceptionDetails.builder()
+            .title("Bad Request Exception, Check the documentation")
+            .status(HttpStatus.BAD_REQUEST.value())
+            .details(AnimeNotFoundException.MESSAGE)
+            .developerMessage(AnimeNotFoundException.class.getName())
+            .build());
+
+    /**
+     * Same body as {@link #handlerBadRequestException}, written from a template instead of
+     * being built and serialized on every request.
+     */
+    @ExceptionHandler(AnimeNotFoundException.class)
+    public ResponseEntity<byte[]> handlerAnimeNotFoundException() {
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ANIME_NOT_FOUND.render(LocalDateTime.now()));
+    }
+
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<BadRequestExceptionDetails> handlerBadRequestException(BadRequestException exception) {
 
@@ -33,6 +59,68 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
                 .build(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(RuntimeJsonMappingException.class)
+    public ResponseEntity<BadRequestExceptionDetails> handlerRuntimeJsonMappingException(RuntimeJsonMappingException exception) {
+
+        return new ResponseEntity<>(BadRequestExceptionDetails.builder()
+                .title("Bad Request Exception, Malformed line in the request body")
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .details(exception.getMessage())
+                .developerMessage(exception.getClass().getName())
+                .build(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ExceptionDetails> handlerPreconditionFailedException(PreconditionFailedException exception) {
+
+        return new ResponseEntity<>(ExceptionDetails.builder()
+                .title("Precondition Failed, Fetch the anime again to get its current ETag")
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.PRECONDITION_FAILED.value())
+                .details(exception.getMessage())
+                .developerMessage(exception.getClass().getName())
+                .build(), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ExceptionDetails> handlerOptimisticLockingFailureException(OptimisticLockingFailureException exception) {
+
+        return new ResponseEntity<>(ExceptionDetails.builder()
+                .title("Conflict, The anime was changed by another request")
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .details(exception.getMessage())
+                .developerMessage(exception.getClass().getName())
+                .build(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ExceptionDetails> handlerTooManyRequestsException(TooManyRequestsException exception) {
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+                .body(ExceptionDetails.builder()
+                        .title("Too Many Requests, Retry after the time in the Retry-After header")
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                        .details(exception.getMessage())
+                        .developerMessage(exception.getClass().getName())
+                        .build());
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ExceptionDetails> handlerAuthenticationException(AuthenticationException exception) {
+
+        return new ResponseEntity<>(ExceptionDetails.builder()
+                .title("Unauthorized, Check your credentials")
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.UNAUTHORIZED.value())
+                .details(exception.getMessage())
+                .developerMessage(exception.getClass().getName())
+                .build(), HttpStatus.UNAUTHORIZED);
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException exception, HttpHeaders headers, HttpStatus status, WebRequest request) {
 
@@ -0,0 +1,290 @@
+package com.rpolido.springboot2essentials.ingestion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rpolido.springboot2essentials.controller.dto.AnimeBulkItemResultDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeIngestionStatusDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import com.rpolido.springboot2essentials.exception.TooManyRequestsException;
+import com.rpolido.springboot2essentials.service.AnimeService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Write-behind queue for {@code POST /animes} with {@code Prefer: respond-async}: animes are
+ * accepted with a tracking id right away and stored by a single writer thread, in batches of
+ * {@code app.anime-ingestion.batch-size} through {@link AnimeService#saveAll}, so a burst of
+ * inserts costs a few transactions instead of one each.
+ * <p>
+ * Every accepted anime is appended to an {@link IngestionJournal} before the request returns, and
+ * queued again from it after a restart. Only {@code memory-capacity} animes are held in memory,
+ * the rest wait in the journal, and past {@code max-pending} animes requests get a 429. Statuses
+ * are kept for {@code status-time-to-live}, for at most twice {@code max-pending} animes.
+ * <p>
+ * Each anime is completed on its own: the animes of a batch failing on the database are tried
+ * again, up to {@code max-attempts} times, while the ones already stored get their result right
+ * away. The journal drops the completed animes once it holds as many of them as waiting ones.
+ */
+@Component
+@ConditionalOnProperty(name = "app.anime-ingestion.enabled", havingValue = "true")
+@Log4j2
+public class AnimeIngestionQueue {
+
+    private final AnimeService animeService;
+    private final IngestionJournal journal;
+    private final int memoryCapacity;
+    private final long maxPending;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    private final ArrayDeque<IngestionJournal.Record> memory = new ArrayDeque<>();
+    private long spilled;
+    private long spillOffset;
+    private long completedSinceCompaction;
+    private final Cache<String, AnimeIngestionStatusDTO> statuses;
+
+    private final Counter rejected;
+    private final Map<AnimeIngestionStatusDTO.Status, Counter> results = new EnumMap<>(AnimeIngestionStatusDTO.Status.class);
+
+    private final Thread writer = new Thread(this::drain, "anime-ingestion-writer");
+    private volatile boolean running = true;
+
+    public AnimeIngestionQueue(AnimeService animeService, ObjectMapper objectMapper,
+                               @Value("${app.anime-ingestion.journal-path:ingestion/animes.journal}") Path journalPath,
+                               @Value("${app.anime-ingestion.journal-sync:false}") boolean journalSync,
+                               @Value("${app.anime-ingestion.memory-capacity:10000}") int memoryCapacity,
+                               @Value("${app.anime-ingestion.max-pending:1000000}") long maxPending,
+                               @Value("${app.anime-ingestion.batch-size:500}") int batchSize,
+                               @Value("${app.anime-ingestion.max-attempts:5}") int maxAttempts,
+                               @Value("${app.anime-ingestion.retry-delay:1s}") Duration retryDelay,
+                               @Value("${app.anime-ingestion.status-time-to-live:1h}") Duration statusTimeToLive,
+                               @Value("${app.anime-bulk.chunk-size:500}") int bulkChunkSize,
+                               MeterRegistry meterRegistry) throws IOException {
+
+        if (batchSize > bulkChunkSize) {
+            throw new IllegalArgumentException("app.anime-ingestion.batch-size (" + batchSize
+                    + ") cannot be greater than app.anime-bulk.chunk-size (" + bulkChunkSize + ")");
+        }
+
+        this.animeService = animeService;
+        this.journal = new IngestionJournal(journalPath, objectMapper, journalSync);
+        this.memoryCapacity = memoryCapacity;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        // room for every anime waiting in memory or in the journal and as many results, so a burst of
+        // accepts cannot grow the statuses past what the queue itself is allowed to hold
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(2 * maxPending)
+                .expireAfterWrite(statusTimeToLive)
+                .build();
+
+        final var replay = journal.replay();
+        replay.getResults().forEach(result -> statuses.put(result.getId(), result));
+        replay.getPending().forEach(record -> statuses.put(record.getId(), queued(record.getId())));
+        this.spilled = replay.getPending().size();
+        if (spilled > 0) {
+            log.info("Queued again {} animes accepted before the restart", spilled);
+        }
+
+        this.rejected = Counter.builder("anime.ingestion.items").tag("result", "rejected").register(meterRegistry);
+        for (final var status : AnimeIngestionStatusDTO.Status.values()) {
+            results.put(status, Counter.builder("anime.ingestion.items").tag("result", status.name().toLowerCase()).register(meterRegistry));
+        }
+        Gauge.builder("anime.ingestion.pending", this, queue -> queue.pending(false)).tag("tier", "memory").register(meterRegistry);
+        Gauge.builder("anime.ingestion.pending", this, queue -> queue.pending(true)).tag("tier", "journal").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        writer.interrupt();
+        writer.join(Duration.ofSeconds(30).toMillis());
+        journal.close();
+    }
+
+    /**
+     * Journals the anime and queues it, or throws a {@link TooManyRequestsException} when
+     * {@code max-pending} animes are already waiting.
+     */
+    public AnimeIngestionStatusDTO accept(AnimeInsertDTO anime) {
+        final var id = UUID.randomUUID().toString();
+        final var record = IngestionJournal.Record.accepted(id, anime);
+
+        synchronized (this) {
+            if (memory.size() + spilled >= maxPending) {
+                rejected.increment();
+                throw new TooManyRequestsException("The ingestion queue is full", retryDelay);
+            }
+
+            final long offset;
+            try {
+                offset = journal.append(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not journal the anime", e);
+            }
+
+            if (spilled == 0 && memory.size() < memoryCapacity) {
+                memory.add(record);
+            } else if (spilled++ == 0) {
+                spillOffset = offset;
+            }
+
+            final var status = queued(id);
+            statuses.put(id, status);
+            results.get(status.getStatus()).increment();
+            notifyAll();
+            return status;
+        }
+    }
+
+    public Optional<AnimeIngestionStatusDTO> status(String id) {
+        return Optional.ofNullable(statuses.getIfPresent(id));
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                write(nextBatch());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | IOException e) {
+                log.error("Anime ingestion writer failed, retrying in {}", retryDelay, e);
+                sleep(retryDelay);
+            }
+        }
+    }
+
+    private synchronized List<IngestionJournal.Record> nextBatch() throws InterruptedException, IOException {
+        while (memory.isEmpty() && spilled == 0) {
+            wait();
+        }
+
+        if (memory.isEmpty()) {
+            final var chunk = journal.readAccepted(spillOffset, (int) Math.min(memoryCapacity, spilled));
+            memory.addAll(chunk.getRecords());
+            spilled -= chunk.getRecords().size();
+            spillOffset = chunk.getNextOffset();
+        }
+
+        final var batch = new ArrayList<IngestionJournal.Record>(Math.min(batchSize, memory.size()));
+        while (batch.size() < batchSize && !memory.isEmpty()) {
+            batch.add(memory.poll());
+        }
+        return batch;
+    }
+
+    private void write(List<IngestionJournal.Record> batch) throws IOException {
+
+        var pending = batch;
+        for (var attempt = 1; !pending.isEmpty(); attempt++) {
+            final var batchResults = animeService.saveAll(pending.stream().map(IngestionJournal.Record::getAnime).iterator());
+
+            final var failed = new ArrayList<IngestionJournal.Record>();
+            for (var i = 0; i < pending.size(); i++) {
+                final var result = batchResults.get(i);
+                if (result.getStatus() == AnimeBulkItemResultDTO.Status.FAILED && attempt < maxAttempts) {
+                    failed.add(pending.get(i));
+                } else {
+                    complete(pending.get(i), result);
+                }
+            }
+            if (failed.isEmpty()) {
+                break;
+            }
+
+            log.warn("{} of {} queued animes failed, attempt {} of {}", failed.size(), pending.size(), attempt, maxAttempts);
+            sleep(retryDelay.multipliedBy(attempt));
+            if (!running) {
+                // stopped while retrying, the failed animes are still in the journal for the next start
+                return;
+            }
+            pending = failed;
+        }
+
+        compact();
+    }
+
+    private void complete(IngestionJournal.Record record, AnimeBulkItemResultDTO batchResult) throws IOException {
+        final var result = toStatus(record.getId(), batchResult);
+        journal.append(IngestionJournal.Record.done(result));
+        statuses.put(result.getId(), result);
+        results.get(result.getStatus()).increment();
+        completedSinceCompaction++;
+    }
+
+    /**
+     * Drops the completed animes from the journal: all of it once nothing waits, otherwise once the
+     * completed ones outnumber the waiting ones, so each rewrite is paid for by the animes it drops.
+     */
+    private synchronized void compact() throws IOException {
+        if (memory.isEmpty() && spilled == 0) {
+            journal.truncate();
+            completedSinceCompaction = 0;
+        } else if (completedSinceCompaction >= Math.max(memoryCapacity, memory.size() + spilled)) {
+            final var tailOffset = journal.compact(List.copyOf(memory), spilled > 0 ? spillOffset : Long.MAX_VALUE);
+            if (spilled > 0) {
+                spillOffset = tailOffset;
+            }
+            completedSinceCompaction = 0;
+        }
+    }
+
+    private synchronized long pending(boolean journalOnly) {
+        return journalOnly ? spilled : memory.size();
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static AnimeIngestionStatusDTO queued(String id) {
+        return AnimeIngestionStatusDTO.builder()
+                .id(id)
+                .status(AnimeIngestionStatusDTO.Status.QUEUED)
+                .build();
+    }
+
+    private static AnimeIngestionStatusDTO toStatus(String id, AnimeBulkItemResultDTO result) {
+        return AnimeIngestionStatusDTO.builder()
+                .id(id)
+                .status(AnimeIngestionStatusDTO.Status.valueOf(result.getStatus().name()))
+                .animeId(result.getId())
+                .message(result.getMessage())
+                .build();
+    }
+}
@@ -0,0 +1,247 @@
+package com.rpolido.springboot2essentials.ingestion;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rpolido.springboot2essentials.controller.dto.AnimeIngestionStatusDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Append-only file behind {@link AnimeIngestionQueue}, one JSON line per accepted anime and one
+ * per result. Accepted animes the memory queue has no room for are only kept here and read back
+ * in order as it drains, and a restart queues again every anime accepted without a result.
+ */
+class IngestionJournal implements Closeable {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final boolean sync;
+    private FileChannel channel;
+
+    IngestionJournal(Path path, ObjectMapper objectMapper, boolean sync) throws IOException {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.sync = sync;
+
+        final var parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = open(path);
+    }
+
+    /**
+     * Appends the record and returns the offset it starts at.
+     */
+    synchronized long append(Record record) throws IOException {
+        final var json = objectMapper.writeValueAsBytes(record);
+        final var buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+
+        final var offset = channel.size();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        return offset;
+    }
+
+    /**
+     * Reads up to {@code maxAccepted} accepted records starting at {@code offset}, skipping results.
+     */
+    synchronized Chunk readAccepted(long offset, int maxAccepted) throws IOException {
+        final var records = new ArrayList<Record>();
+        var position = offset;
+
+        try (final var reader = FileChannel.open(path, StandardOpenOption.READ);
+             final var input = new BufferedInputStream(Channels.newInputStream(reader.position(offset)))) {
+
+            final var line = new ByteArrayOutputStream();
+            while (records.size() < maxAccepted) {
+                final var length = readLine(input, line);
+                if (length < 0) {
+                    break;
+                }
+                position += length;
+
+                final var record = objectMapper.readValue(line.toByteArray(), Record.class);
+                if (record.getType() == Record.Type.ACCEPTED) {
+                    records.add(record);
+                }
+            }
+        }
+        return new Chunk(records, position);
+    }
+
+    /**
+     * Drops every record, once all accepted animes have a result.
+     */
+    synchronized void truncate() throws IOException {
+        channel.truncate(0);
+    }
+
+    /**
+     * Reads the whole journal after a restart and rewrites it with only the accepted animes still
+     * waiting for a result, which are returned in order along with the results already known.
+     */
+    synchronized Replay replay() throws IOException {
+        final var pending = new LinkedHashMap<String, Record>();
+        final var results = new ArrayList<AnimeIngestionStatusDTO>();
+
+        try (final var input = new BufferedInputStream(Files.newInputStream(path))) {
+            final var line = new ByteArrayOutputStream();
+            while (readLine(input, line) >= 0) {
+                final var record = objectMapper.readValue(line.toByteArray(), Record.class);
+                if (record.getType() == Record.Type.ACCEPTED) {
+                    pending.put(record.getId(), record);
+                } else if (pending.remove(record.getId()) != null) {
+                    results.add(record.getResult());
+                }
+            }
+        }
+
+        final var compacted = path.resolveSibling(path.getFileName() + ".compacting");
+        try (final var output = new BufferedOutputStream(Files.newOutputStream(compacted))) {
+            for (final var record : pending.values()) {
+                write(output, record);
+            }
+        }
+        replaceWith(compacted);
+
+        return new Replay(List.copyOf(pending.values()), results);
+    }
+
+    /**
+     * Rewrites the journal with only the waiting animes: {@code head}, followed by the accepted
+     * records from {@code tailOffset} on, and returns the offset the tail starts at afterwards.
+     */
+    synchronized long compact(List<Record> head, long tailOffset) throws IOException {
+        final var compacted = path.resolveSibling(path.getFileName() + ".compacting");
+        long newTailOffset = 0;
+
+        try (final var output = new BufferedOutputStream(Files.newOutputStream(compacted))) {
+            for (final var record : head) {
+                newTailOffset += write(output, record);
+            }
+
+            if (tailOffset < channel.size()) {
+                try (final var reader = FileChannel.open(path, StandardOpenOption.READ);
+                     final var input = new BufferedInputStream(Channels.newInputStream(reader.position(tailOffset)))) {
+
+                    final var line = new ByteArrayOutputStream();
+                    while (readLine(input, line) >= 0) {
+                        final var record = objectMapper.readValue(line.toByteArray(), Record.class);
+                        if (record.getType() == Record.Type.ACCEPTED) {
+                            write(output, record);
+                        }
+                    }
+                }
+            }
+        }
+        replaceWith(compacted);
+
+        return newTailOffset;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private int write(OutputStream output, Record record) throws IOException {
+        final var json = objectMapper.writeValueAsBytes(record);
+        output.write(json);
+        output.write('\n');
+        return json.length + 1;
+    }
+
+    private void replaceWith(Path compacted) throws IOException {
+        channel.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(path);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads one line, without its newline, into {@code line}. Returns the bytes consumed, or -1 at
+     * the end of the file or of a last line left incomplete by a crash.
+     */
+    private static int readLine(InputStream input, ByteArrayOutputStream line) throws IOException {
+        line.reset();
+        var length = 0;
+        int b;
+        while ((b = input.read()) >= 0) {
+            length++;
+            if (b == '\n') {
+                return length;
+            }
+            line.write(b);
+        }
+        return -1;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class Record {
+
+        private Type type;
+        private String id;
+        private AnimeInsertDTO anime;
+        private AnimeIngestionStatusDTO result;
+
+        static Record accepted(String id, AnimeInsertDTO anime) {
+            return new Record(Type.ACCEPTED, id, anime, null);
+        }
+
+        static Record done(AnimeIngestionStatusDTO result) {
+            return new Record(Type.DONE, result.getId(), null, result);
+        }
+
+        enum Type {
+            ACCEPTED,
+            DONE
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Chunk {
+
+        private List<Record> records;
+        private long nextOffset;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Replay {
+
+        private List<Record> pending;
+        private List<AnimeIngestionStatusDTO> results;
+    }
+}
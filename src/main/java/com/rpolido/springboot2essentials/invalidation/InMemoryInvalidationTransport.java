@@ -0,0 +1,45 @@
+package com.rpolido.springboot2essentials.invalidation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stand-in for tests: a log kept in memory and shared by every application context of the JVM,
+ * so contexts started side by side behave like instances of a cluster. Messages are never dropped.
+ */
+@Component
+@ConditionalOnProperty(name = "app.invalidation.transport", havingValue = "in-memory")
+public class InMemoryInvalidationTransport implements InvalidationTransport {
+
+    private static final List<InvalidationMessage> SHARED_LOG = new CopyOnWriteArrayList<>();
+
+    private final List<InvalidationMessage> log;
+    private int position;
+
+    @Autowired
+    public InMemoryInvalidationTransport() {
+        this(SHARED_LOG);
+    }
+
+    public InMemoryInvalidationTransport(List<InvalidationMessage> log) {
+        this.log = log;
+        this.position = log.size();
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        log.add(message);
+    }
+
+    @Override
+    public synchronized List<InvalidationMessage> receive() {
+        final var end = log.size();
+        final var messages = List.copyOf(log.subList(position, end));
+        position = end;
+        return messages;
+    }
+}
@@ -0,0 +1,179 @@
+package com.rpolido.springboot2essentials.invalidation;
+
+import com.rpolido.springboot2essentials.config.SecondLevelCacheConfig;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.domain.DevDojoUser;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import com.rpolido.springboot2essentials.event.CachesStaleEvent;
+import com.rpolido.springboot2essentials.repository.AnimeRepository;
+import com.rpolido.springboot2essentials.security.DevDojoUserCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the caches of every instance consistent. Local anime and user changes are sent through the
+ * {@link InvalidationTransport} before their transaction commits, and the changes of the other
+ * instances are polled every {@code app.invalidation.poll-interval} and evicted here: from the
+ * second-level cache, and through a remote {@link AnimeChangedEvent} from the anime caches and
+ * the search index.
+ * <p>
+ * An instance that cannot poll for longer than {@code app.invalidation.max-staleness} may be
+ * missing changes, so it publishes a {@link CachesStaleEvent} once when it becomes stale, and once
+ * more when polling works again. The listeners rebuild from the database, which is likely what
+ * cannot be reached, so they are not asked to again on every failed poll in between. The
+ * second-level cache, cheap to drop, is still emptied on each of those.
+ */
+@Component
+@EnableScheduling
+@Log4j2
+public class InvalidationBus {
+
+    private final InvalidationTransport transport;
+    private final String nodeId;
+    private final long maxStalenessNanos;
+    private final AnimeRepository animeRepository;
+    private final DevDojoUserCache userCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Counter publishedMessages;
+    private final Counter receivedMessages;
+
+    private volatile long lastReceivedNanos = System.nanoTime();
+    private volatile boolean stale;
+
+    public InvalidationBus(InvalidationTransport transport,
+                           @Value("${app.invalidation.node-id:${random.uuid}}") String nodeId,
+                           @Value("${app.invalidation.max-staleness:30s}") Duration maxStaleness,
+                           AnimeRepository animeRepository,
+                           DevDojoUserCache userCache,
+                           EntityManagerFactory entityManagerFactory,
+                           ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry) {
+
+        this.transport = transport;
+        this.nodeId = nodeId;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.animeRepository = animeRepository;
+        this.userCache = userCache;
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+
+        this.publishedMessages = Counter.builder("invalidation.messages").tag("direction", "published").register(meterRegistry);
+        this.receivedMessages = Counter.builder("invalidation.messages").tag("direction", "received").register(meterRegistry);
+        Gauge.builder("invalidation.staleness", this, bus -> (System.nanoTime() - bus.lastReceivedNanos) / (double) TimeUnit.SECONDS.toNanos(1))
+                .description("Time since the changes of the other instances were last read")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        if (event.isRemote() || event.getIds().isEmpty()) {
+            return;
+        }
+
+        publish(InvalidationMessage.Entity.ANIME, event.getType() == AnimeChangedEvent.ChangeType.DELETED
+                ? InvalidationMessage.Change.DELETED
+                : InvalidationMessage.Change.SAVED, event.getIds());
+    }
+
+    public void publish(InvalidationMessage.Entity entity, InvalidationMessage.Change change, Collection<Long> ids) {
+        transport.publish(new InvalidationMessage(nodeId, entity, change, List.copyOf(ids)));
+        publishedMessages.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.invalidation.poll-interval:1s}")
+    public void poll() {
+
+        final List<InvalidationMessage> messages;
+        try {
+            messages = transport.receive();
+        } catch (RuntimeException e) {
+            if (System.nanoTime() - lastReceivedNanos > maxStalenessNanos) {
+                if (stale) {
+                    log.warn("Still cannot read the changes of the other instances: {}", e.getMessage());
+                    secondLevelCache().evictAllRegions();
+                } else {
+                    log.warn("Could not read the changes of the other instances for longer than the staleness bound, dropping all caches", e);
+                    stale = true;
+                    invalidateAll();
+                }
+            } else {
+                log.warn("Could not read the changes of the other instances: {}", e.getMessage());
+            }
+            return;
+        }
+
+        lastReceivedNanos = System.nanoTime();
+        if (stale) {
+            log.info("Reading the changes of the other instances again, dropping all caches once more");
+            stale = false;
+            invalidateAll();
+        }
+
+        for (final var message : messages) {
+            if (nodeId.equals(message.getNodeId())) {
+                continue;
+            }
+
+            receivedMessages.increment();
+            try {
+                apply(message);
+            } catch (RuntimeException e) {
+                log.warn("Could not apply {}, dropping all caches", message, e);
+                invalidateAll();
+            }
+        }
+    }
+
+    private void apply(InvalidationMessage message) {
+
+        final var secondLevelCache = secondLevelCache();
+        final var ids = message.getIds();
+
+        switch (message.getEntity()) {
+            case ANIME -> {
+                ids.forEach(id -> secondLevelCache.evictEntityData(Anime.class, id));
+                secondLevelCache.evictQueryRegion(SecondLevelCacheConfig.ANIME_BY_NAME_REGION);
+
+                final var event = message.getChange() == InvalidationMessage.Change.DELETED
+                        ? AnimeChangedEvent.deleted(ids)
+                        : AnimeChangedEvent.saved(animeRepository.findAllById(ids));
+                eventPublisher.publishEvent(event.asRemote());
+            }
+            case DEV_DOJO_USER -> {
+                ids.forEach(id -> secondLevelCache.evictEntityData(DevDojoUser.class, id));
+                secondLevelCache.evictQueryRegion(SecondLevelCacheConfig.DEV_DOJO_USER_BY_USERNAME_REGION);
+                // keyed by username, which the message does not carry
+                userCache.invalidateAll();
+            }
+        }
+    }
+
+    private void invalidateAll() {
+        secondLevelCache().evictAllRegions();
+        eventPublisher.publishEvent(new CachesStaleEvent());
+    }
+
+    private Cache secondLevelCache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
@@ -0,0 +1,28 @@
+package com.rpolido.springboot2essentials.invalidation;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One change to send to the other instances: which rows of which entity were saved or deleted,
+ * and by which instance, so it can skip its own changes.
+ */
+@Value
+public class InvalidationMessage {
+
+    String nodeId;
+    Entity entity;
+    Change change;
+    List<Long> ids;
+
+    public enum Entity {
+        ANIME,
+        DEV_DOJO_USER
+    }
+
+    public enum Change {
+        SAVED,
+        DELETED
+    }
+}
@@ -0,0 +1,21 @@
+package com.rpolido.springboot2essentials.invalidation;
+
+import java.util.List;
+
+/**
+ * Carries {@link InvalidationMessage}s between the instances of the application. Selected with
+ * {@code app.invalidation.transport}.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Sends a message. Called inside the transaction that made the change, when there is one, so
+     * a transport writing to the database commits or rolls back with the change itself.
+     */
+    void publish(InvalidationMessage message);
+
+    /**
+     * The messages sent since the previous call, by every instance including this one, oldest first.
+     */
+    List<InvalidationMessage> receive();
+}
@@ -0,0 +1,136 @@
+package com.rpolido.springboot2essentials.invalidation;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Default transport: a change log table in the shared database, one row per message. Rows are
+ * inserted in the writing transaction and read back by id above a watermark, the highest id seen.
+ * <p>
+ * Ids are handed out at insert but become visible at commit, so a lower id can show up after a
+ * higher one was read. Skipped ids are remembered as gaps and looked up by id on every poll for
+ * {@code gap-timeout} before being given up, which also covers the ids rolled back transactions
+ * leave unused. New rows are read past the watermark apart from the gaps, so a gap never holds
+ * the watermark back however many rows follow it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.invalidation.transport", havingValue = "jdbc", matchIfMissing = true)
+@Log4j2
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+    private static final String INSERT_SQL =
+            "insert into entity_change (node_id, entity, change_type, entity_ids, created_at) values (?, ?, ?, ?, ?)";
+    private static final String SELECT_SQL =
+            "select id, node_id, entity, change_type, entity_ids from entity_change where id > ? order by id";
+    private static final String SELECT_GAPS_SQL =
+            "select id, node_id, entity, change_type, entity_ids from entity_change where id in (:ids)";
+    private static final String MAX_ID_SQL = "select coalesce(max(id), 0) from entity_change";
+    private static final String PURGE_SQL = "delete from entity_change where created_at < ?";
+
+    private static final int MAXIMUM_GAPS = 10_000;
+    private static final int MAXIMUM_GAPS_PER_QUERY = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final int gapsPerQuery;
+    private final long gapTimeoutNanos;
+    private final Duration retention;
+
+    private final TreeMap<Long, Long> gapsSince = new TreeMap<>();
+    private long watermark = -1;
+
+    public JdbcInvalidationTransport(JdbcTemplate jdbcTemplate,
+                                     @Value("${app.invalidation.gap-timeout:10s}") Duration gapTimeout,
+                                     @Value("${app.invalidation.batch-size:1000}") int batchSize,
+                                     @Value("${app.invalidation.retention:1h}") Duration retention) {
+
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setMaxRows(batchSize);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+        this.gapsPerQuery = Math.min(batchSize, MAXIMUM_GAPS_PER_QUERY);
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.retention = retention;
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        jdbcTemplate.update(INSERT_SQL, message.getNodeId(), message.getEntity().name(), message.getChange().name(),
+                message.getIds().stream().map(String::valueOf).collect(Collectors.joining(",")),
+                Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Starts from the end of the log on the first call: a fresh instance has nothing cached yet.
+     */
+    @Override
+    public synchronized List<InvalidationMessage> receive() {
+
+        if (watermark < 0) {
+            watermark = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+            return List.of();
+        }
+
+        final var now = System.nanoTime();
+        final var messages = new ArrayList<InvalidationMessage>();
+
+        final var gaps = new ArrayList<>(gapsSince.keySet());
+        for (var from = 0; from < gaps.size(); from += gapsPerQuery) {
+            final var ids = gaps.subList(from, Math.min(gaps.size(), from + gapsPerQuery));
+            namedJdbcTemplate.query(SELECT_GAPS_SQL, Map.of("ids", ids), (RowCallbackHandler) resultSet -> {
+                gapsSince.remove(resultSet.getLong("id"));
+                messages.add(toMessage(resultSet));
+            });
+        }
+
+        jdbcTemplate.query(SELECT_SQL, (RowCallbackHandler) resultSet -> {
+            final var id = resultSet.getLong("id");
+
+            for (var gap = Math.max(watermark + 1, id - MAXIMUM_GAPS); gap < id; gap++) {
+                gapsSince.putIfAbsent(gap, now);
+            }
+            watermark = id;
+            messages.add(toMessage(resultSet));
+        }, watermark);
+
+        gapsSince.values().removeIf(since -> now - since > gapTimeoutNanos);
+        while (gapsSince.size() > MAXIMUM_GAPS) {
+            gapsSince.pollFirstEntry();
+        }
+
+        return messages;
+    }
+
+    @Scheduled(fixedDelayString = "${app.invalidation.cleanup-interval:10m}")
+    public void purge() {
+        final var purged = jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now().minus(retention)));
+        log.debug("Purged {} entity changes older than {}", purged, retention);
+    }
+
+    private static InvalidationMessage toMessage(ResultSet resultSet) throws SQLException {
+        return new InvalidationMessage(resultSet.getString("node_id"),
+                InvalidationMessage.Entity.valueOf(resultSet.getString("entity")),
+                InvalidationMessage.Change.valueOf(resultSet.getString("change_type")),
+                Arrays.stream(resultSet.getString("entity_ids").split(","))
+                        .filter(id -> !id.isEmpty())
+                        .map(Long::valueOf)
+                        .collect(Collectors.toUnmodifiableList()));
+    }
+}
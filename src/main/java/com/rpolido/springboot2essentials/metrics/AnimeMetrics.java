@@ -0,0 +1,26 @@
+package com.rpolido.springboot2essentials.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers for work that is not a Spring bean call, so it cannot be timed with {@code @Timed}.
+ */
+@Component
+public class AnimeMetrics {
+
+    private final Timer mapping;
+
+    public AnimeMetrics(MeterRegistry meterRegistry) {
+        this.mapping = Timer.builder("anime.mapping")
+                .description("Time spent mapping anime DTOs to entities")
+                .register(meterRegistry);
+    }
+
+    public <T> T recordMapping(Supplier<T> mapping) {
+        return this.mapping.record(mapping);
+    }
+}
@@ -0,0 +1,47 @@
+package com.rpolido.springboot2essentials.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size, lock-free buffer keeping the last {@code capacity} elements added.
+ */
+class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLong added = new AtomicLong();
+
+    RingBuffer(int capacity) {
+        this.elements = new AtomicReferenceArray<>(capacity);
+    }
+
+    void add(T element) {
+        elements.set((int) (added.getAndIncrement() % elements.length()), element);
+    }
+
+    /**
+     * The elements still in the buffer, newest first.
+     */
+    List<T> snapshot() {
+        final var last = added.get();
+        final var size = (int) Math.min(last, elements.length());
+        final var snapshot = new ArrayList<T>(size);
+
+        for (var i = 1; i <= size; i++) {
+            final var element = elements.get((int) ((last - i) % elements.length()));
+            if (element != null) {
+                snapshot.add(element);
+            }
+        }
+        return snapshot;
+    }
+
+    void clear() {
+        for (var i = 0; i < elements.length(); i++) {
+            elements.set(i, null);
+        }
+        added.set(0);
+    }
+}
@@ -0,0 +1,254 @@
+package com.rpolido.springboot2essentials.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregates every JDBC statement seen by {@link SqlStatisticsListener}: per statement counts and
+ * latency, a ring buffer of the slowest offenders and, per HTTP request, statements repeated often
+ * enough to look like an N+1. Meters only carry the statement type. The first statements run before
+ * the meter registry exists, so they are registered when Spring Boot binds this {@link MeterBinder}
+ * to the registry, and statements before that are only kept here. The statement text itself is
+ * only exposed through the {@code sqlstats} actuator endpoint.
+ */
+@Component
+@Log4j2
+public class SqlStatistics implements MeterBinder {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_SQL_LENGTH = 2000;
+    private static final List<String> TYPES = List.of("select", "insert", "update", "delete", "other");
+
+    private final long slowStatementNanos;
+    private final int nPlusOneThreshold;
+    private final int maximumStatements;
+
+    private final ConcurrentMap<String, StatementStatistics> statements = new ConcurrentHashMap<>();
+    private final LongAdder untrackedExecutions = new LongAdder();
+    private final RingBuffer<SlowStatement> slowStatements;
+    private final RingBuffer<NPlusOneSuspect> nPlusOneSuspects;
+    private final ThreadLocal<Map<String, Integer>> requestExecutions = new ThreadLocal<>();
+
+    private volatile Meters meters;
+
+    public SqlStatistics(@Value("${app.sql-stats.slow-statement-threshold:100ms}") Duration slowStatementThreshold,
+                         @Value("${app.sql-stats.slow-statement-log-size:100}") int slowStatementLogSize,
+                         @Value("${app.sql-stats.n-plus-one-threshold:10}") int nPlusOneThreshold,
+                         @Value("${app.sql-stats.maximum-statements:1000}") int maximumStatements) {
+
+        this.slowStatementNanos = slowStatementThreshold.toNanos();
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.maximumStatements = maximumStatements;
+        this.slowStatements = new RingBuffer<>(slowStatementLogSize);
+        this.nPlusOneSuspects = new RingBuffer<>(slowStatementLogSize);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        meters = new Meters(timers(meterRegistry, true), timers(meterRegistry, false),
+                Counter.builder("jdbc.statements.slow")
+                        .description("JDBC statements slower than app.sql-stats.slow-statement-threshold")
+                        .register(meterRegistry),
+                Counter.builder("jdbc.statements.n-plus-one")
+                        .description("Statements repeated at least app.sql-stats.n-plus-one-threshold times in one request")
+                        .register(meterRegistry));
+    }
+
+    public void record(String sql, long elapsedNanos, boolean success) {
+
+        final var normalized = normalize(sql);
+        final var meters = this.meters;
+
+        if (meters != null) {
+            (success ? meters.succeeded : meters.failed).get(typeOf(normalized)).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        final var statistics = statements.size() < maximumStatements
+                ? statements.computeIfAbsent(normalized, key -> new StatementStatistics())
+                : statements.get(normalized);
+
+        if (statistics == null) {
+            untrackedExecutions.increment();
+        } else {
+            statistics.record(elapsedNanos, success);
+        }
+
+        if (elapsedNanos >= slowStatementNanos) {
+            if (meters != null) {
+                meters.slowStatementCounter.increment();
+            }
+            slowStatements.add(new SlowStatement(Instant.now(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), normalized));
+            log.warn("Slow statement took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), normalized);
+        }
+
+        final var executions = requestExecutions.get();
+        if (executions != null) {
+            executions.merge(normalized, 1, Integer::sum);
+        }
+    }
+
+    public void beginRequest() {
+        requestExecutions.set(new HashMap<>());
+    }
+
+    public void endRequest(String request) {
+
+        final var executions = requestExecutions.get();
+        requestExecutions.remove();
+
+        if (executions == null) {
+            return;
+        }
+
+        final var meters = this.meters;
+        executions.forEach((sql, count) -> {
+            if (count >= nPlusOneThreshold) {
+                if (meters != null) {
+                    meters.nPlusOneCounter.increment();
+                }
+                nPlusOneSuspects.add(new NPlusOneSuspect(Instant.now(), request, sql, count));
+                log.warn("Possible N+1: {} ran {} times for {}", sql, count, request);
+            }
+        });
+    }
+
+    /**
+     * The {@code limit} statements with the highest total time.
+     */
+    public List<StatementSnapshot> topStatements(int limit) {
+        return statements.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingDouble(StatementSnapshot::getTotalMillis).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public long getTrackedStatements() {
+        return statements.size();
+    }
+
+    public long getUntrackedExecutions() {
+        return untrackedExecutions.sum();
+    }
+
+    public List<SlowStatement> getSlowStatements() {
+        return slowStatements.snapshot();
+    }
+
+    public List<NPlusOneSuspect> getNPlusOneSuspects() {
+        return nPlusOneSuspects.snapshot();
+    }
+
+    public void reset() {
+        statements.clear();
+        untrackedExecutions.reset();
+        slowStatements.clear();
+        nPlusOneSuspects.clear();
+    }
+
+    private static Map<String, Timer> timers(MeterRegistry meterRegistry, boolean success) {
+        return TYPES.stream().collect(Collectors.toUnmodifiableMap(type -> type, type -> Timer.builder("jdbc.statements")
+                .description("Time spent executing JDBC statements")
+                .tag("type", type)
+                .tag("success", Boolean.toString(success))
+                .register(meterRegistry)));
+    }
+
+    static String normalize(String sql) {
+        final var normalized = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        return normalized.length() > MAX_SQL_LENGTH ? normalized.substring(0, MAX_SQL_LENGTH) : normalized;
+    }
+
+    private static String typeOf(String sql) {
+        final var space = sql.indexOf(' ');
+        final var keyword = (space < 0 ? sql : sql.substring(0, space)).toLowerCase(Locale.ROOT);
+
+        return TYPES.contains(keyword) ? keyword : "other";
+    }
+
+    @AllArgsConstructor
+    private static class Meters {
+        private final Map<String, Timer> succeeded;
+        private final Map<String, Timer> failed;
+        private final Counter slowStatementCounter;
+        private final Counter nPlusOneCounter;
+    }
+
+    private static class StatementStatistics {
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long elapsedNanos, boolean success) {
+            executions.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+            if (!success) {
+                failures.increment();
+            }
+        }
+
+        StatementSnapshot snapshot(String sql) {
+            final var count = executions.sum();
+            final var total = totalNanos.sum();
+            return new StatementSnapshot(sql, count, failures.sum(), toMillis(total),
+                    count == 0 ? 0 : toMillis(total / count), toMillis(maxNanos.get()));
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StatementSnapshot {
+        private final String sql;
+        private final long executions;
+        private final long failures;
+        private final double totalMillis;
+        private final double meanMillis;
+        private final double maxMillis;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SlowStatement {
+        private final Instant timestamp;
+        private final long elapsedMillis;
+        private final String sql;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class NPlusOneSuspect {
+        private final Instant timestamp;
+        private final String request;
+        private final String sql;
+        private final int executions;
+    }
+}
@@ -0,0 +1,44 @@
+package com.rpolido.springboot2essentials.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Feeds every statement executed through the proxied data source to {@link SqlStatistics}.
+ * A batch counts as one execution of its statement.
+ */
+class SqlStatisticsListener implements QueryExecutionListener {
+
+    private static final String STARTED = SqlStatisticsListener.class.getName() + ".started";
+
+    private final ObjectProvider<SqlStatistics> sqlStatistics;
+
+    SqlStatisticsListener(ObjectProvider<SqlStatistics> sqlStatistics) {
+        this.sqlStatistics = sqlStatistics;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(STARTED, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+
+        final var started = execInfo.getCustomValue(STARTED, Long.class);
+        if (started == null || queryInfoList.isEmpty()) {
+            return;
+        }
+
+        final var sql = queryInfoList.size() == 1
+                ? queryInfoList.get(0).getQuery()
+                : queryInfoList.stream().map(QueryInfo::getQuery).distinct().collect(Collectors.joining("; "));
+
+        sqlStatistics.ifAvailable(statistics -> statistics.record(sql, System.nanoTime() - started, execInfo.isSuccess()));
+    }
+}
@@ -0,0 +1,33 @@
+package com.rpolido.springboot2essentials.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Scopes N+1 detection in {@link SqlStatistics} to a single request.
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlStatisticsRequestFilter extends OncePerRequestFilter {
+
+    private final SqlStatistics sqlStatistics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        sqlStatistics.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            sqlStatistics.endRequest(request.getMethod() + " " + request.getRequestURI());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.rpolido.springboot2essentials.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * {@code /actuator/sqlstats}: the statements that cost the most JDBC time, the slow statement
+ * and N+1 logs from {@link SqlStatistics}, and Hibernate's own statistics per query, per entity
+ * and per second-level cache region. A {@code DELETE} starts both over.
+ */
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SqlStatistics sqlStatistics;
+    private final Statistics hibernateStatistics;
+
+    public SqlStatsEndpoint(SqlStatistics sqlStatistics, EntityManagerFactory entityManagerFactory) {
+        this.sqlStatistics = sqlStatistics;
+        this.hibernateStatistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public SqlStatsReport report(@Nullable Integer limit) {
+
+        final var top = limit == null ? DEFAULT_LIMIT : limit;
+
+        return new SqlStatsReport(
+                new JdbcReport(sqlStatistics.getTrackedStatements(), sqlStatistics.getUntrackedExecutions(),
+                        sqlStatistics.topStatements(top), sqlStatistics.getSlowStatements(), sqlStatistics.getNPlusOneSuspects()),
+                hibernateReport(top));
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlStatistics.reset();
+        hibernateStatistics.clear();
+    }
+
+    private HibernateReport hibernateReport(int limit) {
+
+        final var queries = Arrays.stream(hibernateStatistics.getQueries())
+                .map(query -> {
+                    final var statistics = hibernateStatistics.getQueryStatistics(query);
+                    return new QueryReport(query, statistics.getExecutionCount(), statistics.getExecutionRowCount(),
+                            statistics.getExecutionAvgTime(), statistics.getExecutionMaxTime(), statistics.getCacheHitCount());
+                })
+                .sorted(Comparator.comparingLong((QueryReport query) -> query.getExecutions() * query.getMeanMillis()).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+
+        final var entities = Arrays.stream(hibernateStatistics.getEntityNames())
+                .map(entity -> {
+                    final var statistics = hibernateStatistics.getEntityStatistics(entity);
+                    return new EntityReport(entity, statistics.getLoadCount(), statistics.getFetchCount(),
+                            statistics.getInsertCount(), statistics.getUpdateCount(), statistics.getDeleteCount());
+                })
+                .collect(Collectors.toList());
+
+        final var cacheRegions = Arrays.stream(hibernateStatistics.getSecondLevelCacheRegionNames())
+                .map(region -> {
+                    final var statistics = hibernateStatistics.getDomainDataRegionStatistics(region);
+                    return new CacheRegionReport(region, statistics.getHitCount(), statistics.getMissCount(),
+                            statistics.getPutCount(), statistics.getElementCountInMemory());
+                })
+                .collect(Collectors.toList());
+
+        return new HibernateReport(hibernateStatistics.isStatisticsEnabled(), hibernateStatistics.getPrepareStatementCount(),
+                hibernateStatistics.getEntityLoadCount(), hibernateStatistics.getEntityFetchCount(),
+                hibernateStatistics.getSecondLevelCacheHitCount(), hibernateStatistics.getSecondLevelCacheMissCount(),
+                hibernateStatistics.getSecondLevelCachePutCount(), hibernateStatistics.getQueryExecutionMaxTimeQueryString(),
+                hibernateStatistics.getQueryExecutionMaxTime(), queries, entities, cacheRegions);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SqlStatsReport {
+        private final JdbcReport jdbc;
+        private final HibernateReport hibernate;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class JdbcReport {
+        private final long trackedStatements;
+        private final long untrackedExecutions;
+        private final List<SqlStatistics.StatementSnapshot> topStatements;
+        private final List<SqlStatistics.SlowStatement> slowStatements;
+        private final List<SqlStatistics.NPlusOneSuspect> suspectedNPlusOne;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class HibernateReport {
+        private final boolean enabled;
+        private final long preparedStatements;
+        private final long entityLoads;
+        private final long entityFetches;
+        private final long secondLevelCacheHits;
+        private final long secondLevelCacheMisses;
+        private final long secondLevelCachePuts;
+        private final String slowestQuery;
+        private final long slowestQueryMillis;
+        private final List<QueryReport> queries;
+        private final List<EntityReport> entities;
+        private final List<CacheRegionReport> secondLevelCacheRegions;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class QueryReport {
+        private final String query;
+        private final long executions;
+        private final long rows;
+        private final long meanMillis;
+        private final long maxMillis;
+        private final long cacheHits;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class EntityReport {
+        private final String entity;
+        private final long loads;
+        private final long fetches;
+        private final long inserts;
+        private final long updates;
+        private final long deletes;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CacheRegionReport {
+        private final String region;
+        private final long hits;
+        private final long misses;
+        private final long puts;
+        private final long elementsInMemory;
+    }
+}
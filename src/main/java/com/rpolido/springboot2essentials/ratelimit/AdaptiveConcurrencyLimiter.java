@@ -0,0 +1,122 @@
+package com.rpolido.springboot2essentials.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sheds {@code /animes} requests past a concurrency limit that follows the observed latency
+ * (additive increase, multiplicative decrease): a request slower than
+ * {@code app.load-shedding.latency-threshold} cuts the limit by {@code backoff-ratio}, at most
+ * once per threshold so one slow burst counts once, and every faster request completed while at
+ * least half the limit is in use raises it by one. The limit stays between {@code min-limit} and
+ * {@code max-limit}, so when the database slows down requests are turned away early instead of
+ * queueing for a Hikari connection until they time out.
+ * <p>
+ * Disabled unless {@code app.load-shedding.enabled} is set, and it starts at the 200 requests of
+ * the default Tomcat pool, so turning it on does not cut the concurrency the container already had.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Duration retryAfter;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecrease;
+
+    private final Counter shed;
+
+    public AdaptiveConcurrencyLimiter(@Value("${app.load-shedding.enabled:false}") boolean enabled,
+                                      @Value("${app.load-shedding.initial-limit:200}") int initialLimit,
+                                      @Value("${app.load-shedding.min-limit:5}") int minLimit,
+                                      @Value("${app.load-shedding.max-limit:200}") int maxLimit,
+                                      @Value("${app.load-shedding.latency-threshold:500ms}") Duration latencyThreshold,
+                                      @Value("${app.load-shedding.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${app.load-shedding.retry-after:1s}") Duration retryAfter,
+                                      MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.retryAfter = retryAfter;
+        this.limit = new AtomicInteger(Math.max(minLimit, Math.min(maxLimit, initialLimit)));
+        this.lastDecrease = new AtomicLong(System.nanoTime() - latencyThresholdNanos);
+
+        this.shed = Counter.builder("load.shedding.requests").tag("result", "shed").register(meterRegistry);
+        Gauge.builder("load.shedding.limit", limit, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("load.shedding.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Admits the request, to be followed by {@link #release(long)} or {@link #release()}, or returns {@code false} when the
+     * limit is reached.
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        if (inFlight.incrementAndGet() > limit.get()) {
+            inFlight.decrementAndGet();
+            shed.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ends a request admitted by {@link #tryAcquire} at {@code startNanos} and adapts the limit
+     * to how long it took.
+     */
+    public void release(long startNanos) {
+        if (!enabled) {
+            return;
+        }
+
+        final var now = System.nanoTime();
+        final var used = inFlight.getAndDecrement();
+
+        if (now - startNanos > latencyThresholdNanos) {
+            final var last = lastDecrease.get();
+            if (now - last >= latencyThresholdNanos && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+            }
+        } else if (used * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    /**
+     * Ends a request admitted by {@link #tryAcquire} without adapting the limit, for requests
+     * whose duration depends on the amount of data rather than on how loaded the application is.
+     */
+    public void release() {
+        if (enabled) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    /**
+     * How long shed clients are told to wait before trying again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,90 @@
+package com.rpolido.springboot2essentials.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One {@link TokenBucket} per user and {@link RateLimitRoute}, so a single client can only spend
+ * its own share of the Tomcat threads and Hikari connections. Buckets live in a Caffeine cache and
+ * are dropped after {@code app.rate-limit.idle-time} without requests, when they are full anyway.
+ * <p>
+ * Meters are tagged by route only, a tag per user would grow without bound.
+ */
+@Component
+public class PrincipalRateLimiter {
+
+    private final boolean enabled;
+    private final Map<RateLimitRoute, Limits> limits = new EnumMap<>(RateLimitRoute.class);
+    private final Cache<BucketKey, TokenBucket> buckets;
+
+    private final Map<RateLimitRoute, Counter> allowed = new EnumMap<>(RateLimitRoute.class);
+    private final Map<RateLimitRoute, Counter> limited = new EnumMap<>(RateLimitRoute.class);
+
+    public PrincipalRateLimiter(@Value("${app.rate-limit.enabled:true}") boolean enabled,
+                                @Value("${app.rate-limit.maximum-buckets:100000}") long maximumBuckets,
+                                @Value("${app.rate-limit.idle-time:10m}") Duration idleTime,
+                                @Value("${app.rate-limit.admin.capacity:20}") long adminCapacity,
+                                @Value("${app.rate-limit.admin.tokens-per-second:5}") double adminTokensPerSecond,
+                                @Value("${app.rate-limit.all.capacity:20}") long allCapacity,
+                                @Value("${app.rate-limit.all.tokens-per-second:2}") double allTokensPerSecond,
+                                @Value("${app.rate-limit.default.capacity:100}") long defaultCapacity,
+                                @Value("${app.rate-limit.default.tokens-per-second:50}") double defaultTokensPerSecond,
+                                MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumBuckets)
+                .expireAfterAccess(idleTime)
+                .build();
+
+        limits.put(RateLimitRoute.ADMIN, new Limits(adminCapacity, adminTokensPerSecond));
+        limits.put(RateLimitRoute.ALL, new Limits(allCapacity, allTokensPerSecond));
+        limits.put(RateLimitRoute.DEFAULT, new Limits(defaultCapacity, defaultTokensPerSecond));
+
+        for (final var route : RateLimitRoute.values()) {
+            allowed.put(route, Counter.builder("rate.limit.requests").tag("route", route.tag()).tag("result", "allowed").register(meterRegistry));
+            limited.put(route, Counter.builder("rate.limit.requests").tag("route", route.tag()).tag("result", "limited").register(meterRegistry));
+        }
+        Gauge.builder("rate.limit.buckets", buckets, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Takes a token from the bucket of {@code principal} for {@code route} and returns
+     * {@link Duration#ZERO}, or returns how long until the next token when the bucket is empty.
+     */
+    public Duration tryAcquire(RateLimitRoute route, String principal) {
+        if (!enabled) {
+            return Duration.ZERO;
+        }
+
+        final var now = System.nanoTime();
+        final var routeLimits = limits.get(route);
+        final var bucket = buckets.get(new BucketKey(route, principal),
+                key -> new TokenBucket(routeLimits.getCapacity(), routeLimits.getTokensPerSecond(), now));
+
+        final var wait = bucket.tryAcquire(now);
+        (wait == 0 ? allowed : limited).get(route).increment();
+        return Duration.ofNanos(wait);
+    }
+
+    @lombok.Value
+    private static class BucketKey {
+        RateLimitRoute route;
+        String principal;
+    }
+
+    @lombok.Value
+    private static class Limits {
+        long capacity;
+        double tokensPerSecond;
+    }
+}
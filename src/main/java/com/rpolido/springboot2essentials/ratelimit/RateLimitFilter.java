@@ -0,0 +1,153 @@
+package com.rpolido.springboot2essentials.ratelimit;
+
+import com.rpolido.springboot2essentials.exception.ExceptionDetails;
+import com.rpolido.springboot2essentials.handler.ErrorBodyTemplate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies {@link PrincipalRateLimiter} and then {@link AdaptiveConcurrencyLimiter} to the
+ * {@code /animes} endpoints. It runs after authorization, so requests are limited per
+ * authenticated user and rejected ones never reach the controllers: a 429 when the user's bucket
+ * is empty and a 503 when the application sheds load, both with a {@code Retry-After}.
+ * <p>
+ * A request stays in flight until its response is complete, which for async handlers such as
+ * {@code /animes/stream} is after the filter chain returns. The stream and the bulk endpoints take
+ * as long as the data they carry, so they count against the limit but do not adapt it.
+ */
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final ErrorBodyTemplate TOO_MANY_REQUESTS = ErrorBodyTemplate.of(ExceptionDetails.builder()
+            .title("Too Many Requests, Retry after the time in the Retry-After header")
+            .status(HttpStatus.TOO_MANY_REQUESTS.value())
+            .details("Rate limit exceeded")
+            .developerMessage(PrincipalRateLimiter.class.getName())
+            .build());
+
+    private static final ErrorBodyTemplate SERVICE_UNAVAILABLE = ErrorBodyTemplate.of(ExceptionDetails.builder()
+            .title("Service Unavailable, Retry after the time in the Retry-After header")
+            .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+            .details("Too many requests in progress")
+            .developerMessage(AdaptiveConcurrencyLimiter.class.getName())
+            .build());
+
+    private static final RequestMatcher UNMEASURED = new OrRequestMatcher(
+            new AntPathRequestMatcher("/animes/stream"),
+            new AntPathRequestMatcher("/animes/bulk"),
+            new AntPathRequestMatcher("/animes/admin/bulk"));
+
+    private final PrincipalRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        final var route = RateLimitRoute.of(request);
+        if (route.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final var wait = rateLimiter.tryAcquire(route.get(), principal(request));
+        if (!wait.isZero()) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, TOO_MANY_REQUESTS, wait);
+            return;
+        }
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, SERVICE_UNAVAILABLE, concurrencyLimiter.getRetryAfter());
+            return;
+        }
+
+        final var release = new Release(System.nanoTime(), UNMEASURED.matches(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(release);
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Gives back the slot of an admitted request once, whether its response completes, fails or
+     * times out.
+     */
+    @RequiredArgsConstructor
+    private class Release implements AsyncListener {
+
+        private final long startNanos;
+        private final boolean unmeasured;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void run() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (unmeasured) {
+                concurrencyLimiter.release();
+            } else {
+                concurrencyLimiter.release(startNanos);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // the listener has to be added again to the new async cycle
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private static String principal(HttpServletRequest request) {
+        final var user = request.getRemoteUser();
+        return user != null ? user : request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, ErrorBodyTemplate body, Duration retryAfter)
+            throws IOException {
+
+        final var content = body.render(LocalDateTime.now());
+        response.setStatus(status.value());
+        // Retry-After is in whole seconds, rounded up so the client does not come back too early
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(content.length);
+        response.getOutputStream().write(content);
+    }
+}
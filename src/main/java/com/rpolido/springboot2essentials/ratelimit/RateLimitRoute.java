@@ -0,0 +1,34 @@
+package com.rpolido.springboot2essentials.ratelimit;
+
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Groups of {@code /animes} endpoints with a bucket of their own per user, the first one
+ * matching a request wins. Each has its limits under {@code app.rate-limit.<name>}.
+ */
+public enum RateLimitRoute {
+
+    ADMIN("/animes/admin/**"),
+    ALL("/animes/all"),
+    DEFAULT("/animes/**");
+
+    private final AntPathRequestMatcher matcher;
+
+    RateLimitRoute(String pattern) {
+        this.matcher = new AntPathRequestMatcher(pattern);
+    }
+
+    public static Optional<RateLimitRoute> of(HttpServletRequest request) {
+        return Arrays.stream(values())
+                .filter(route -> route.matcher.matches(request))
+                .findFirst();
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,40 @@
+package com.rpolido.springboot2essentials.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to {@code capacity} tokens refilled at {@code tokensPerSecond}.
+ * Instead of a token count it keeps the time the bucket will be full again (the generic cell rate
+ * algorithm), so taking a token is a single compare-and-set and refilling needs no timer.
+ */
+final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(long capacity, double tokensPerSecond, long nowNanos) {
+        this.nanosPerToken = Math.max(1, (long) (NANOS_PER_SECOND / tokensPerSecond));
+        this.burstNanos = capacity * nanosPerToken;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token and returns 0, or returns the nanoseconds until one is available.
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            final var current = fullAt.get();
+            final var next = Math.max(current, nowNanos) + nanosPerToken;
+            final var wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.rpolido.springboot2essentials.reactive.config;
+
+import com.rpolido.springboot2essentials.reactive.ReactiveAnimeApplication;
+import com.rpolido.springboot2essentials.security.TokenService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same rules as the servlet {@code SecurityConfig}: HTTP Basic against the DevDojo users, or a
+ * bearer token issued by {@code POST /auth/token} of the servlet application with the same secret.
+ * There is no form login, this variant only serves the API.
+ */
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+@Profile(ReactiveAnimeApplication.PROFILE)
+@Import(TokenService.class)
+public class ReactiveSecurityConfig {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, TokenService tokenService) {
+        return http.csrf().disable()
+                .addFilterAt(bearerTokenFilter(tokenService), SecurityWebFiltersOrder.AUTHENTICATION)
+                .authorizeExchange()
+                .pathMatchers("/animes/admin/**").hasRole("ADMIN")
+                .pathMatchers("/animes/**").hasRole("USER")
+                .anyExchange()
+                .authenticated()
+                .and()
+                .httpBasic()
+                .and()
+                .build();
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    }
+
+    /**
+     * The token is already verified while it is converted, so the manager only passes it through.
+     */
+    private static AuthenticationWebFilter bearerTokenFilter(TokenService tokenService) {
+
+        final var filter = new AuthenticationWebFilter((ReactiveAuthenticationManager) Mono::just);
+        filter.setServerAuthenticationConverter(exchange -> {
+            final var authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+            if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+                return Mono.empty();
+            }
+
+            return Mono.<Authentication>justOrEmpty(tokenService.verify(authorization.substring(BEARER_PREFIX.length()).trim()))
+                    .switchIfEmpty(Mono.error(() -> new BadCredentialsException("Invalid token")));
+        });
+        return filter;
+    }
+}
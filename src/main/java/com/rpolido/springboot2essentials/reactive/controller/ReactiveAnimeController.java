@@ -0,0 +1,96 @@
+package com.rpolido.springboot2essentials.reactive.controller;
+
+import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeUpdateDTO;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.reactive.ReactiveAnimeApplication;
+import com.rpolido.springboot2essentials.reactive.service.ReactiveAnimeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NO_CONTENT;
+
+/**
+ * Same routes as the servlet {@code AnimeController}, answered without blocking a thread.
+ */
+@RestController
+@Profile(ReactiveAnimeApplication.PROFILE)
+@RequestMapping("animes")
+@RequiredArgsConstructor
+@Log4j2
+public class ReactiveAnimeController {
+
+    private final ReactiveAnimeService animeService;
+
+    @GetMapping
+    public Mono<Page<Anime>> list(@RequestParam(defaultValue = "0") int page,
+                                  @RequestParam(defaultValue = "20") int size) {
+        return animeService.listAll(PageRequest.of(page, size));
+    }
+
+    /**
+     * Sent as a JSON array, or one anime per line with {@code Accept: application/x-ndjson}. Either
+     * way the rows are requested from the database only as fast as the client reads them.
+     */
+    @GetMapping(path = "/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Anime> listAll() {
+        return animeService.listAllNonPaged();
+    }
+
+    @GetMapping(path = "/{id}")
+    public Mono<Anime> findById(@PathVariable long id) {
+        return animeService.findByIdOrThrowBadRequestException(id);
+    }
+
+    @GetMapping(path = "by-id/{id}")
+    public Mono<Anime> findByIdAuthenticationPrincipal(@PathVariable long id,
+                                                       @AuthenticationPrincipal UserDetails userdetails) {
+
+        log.info(userdetails);
+        return animeService.findByIdOrThrowBadRequestException(id);
+    }
+
+    @GetMapping(path = "/find")
+    public Flux<Anime> findByName(@RequestParam String name) {
+        return animeService.findByName(name);
+    }
+
+    @PostMapping
+    @ResponseStatus(CREATED)
+    public Mono<Anime> save(@RequestBody @Valid AnimeInsertDTO anime) {
+        return animeService.save(anime);
+    }
+
+    @PutMapping
+    @ResponseStatus(NO_CONTENT)
+    public Mono<Void> replace(@RequestBody AnimeUpdateDTO anime) {
+        return animeService.replace(anime);
+    }
+
+    @DeleteMapping(path = "/admin/{id}")
+    @ResponseStatus(NO_CONTENT)
+    public Mono<Void> delete(@PathVariable long id) {
+        return animeService.delete(id);
+    }
+}
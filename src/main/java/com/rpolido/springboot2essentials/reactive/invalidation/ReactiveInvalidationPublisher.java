@@ -0,0 +1,46 @@
+package com.rpolido.springboot2essentials.reactive.invalidation;
+
+import com.rpolido.springboot2essentials.invalidation.InvalidationMessage;
+import com.rpolido.springboot2essentials.reactive.ReactiveAnimeApplication;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the reactive variant's changes to the {@code entity_change} log of the servlet
+ * instances, which share its database and cache the animes it changes. Call it inside the writing
+ * R2DBC transaction so the row commits or rolls back with the change. Only publishes: the
+ * reactive variant caches nothing, so it has nothing to invalidate.
+ */
+@Component
+@Profile(ReactiveAnimeApplication.PROFILE)
+public class ReactiveInvalidationPublisher {
+
+    private static final String INSERT_SQL = "insert into entity_change (node_id, entity, change_type, entity_ids, created_at) "
+            + "values (:nodeId, :entity, :changeType, :entityIds, :createdAt)";
+
+    private final DatabaseClient databaseClient;
+    private final String nodeId;
+
+    public ReactiveInvalidationPublisher(DatabaseClient databaseClient,
+                                         @Value("${app.invalidation.node-id:${random.uuid}}") String nodeId) {
+        this.databaseClient = databaseClient;
+        this.nodeId = nodeId;
+    }
+
+    public Mono<Void> publish(InvalidationMessage.Entity entity, InvalidationMessage.Change change, Collection<Long> ids) {
+        return databaseClient.sql(INSERT_SQL)
+                .bind("nodeId", nodeId)
+                .bind("entity", entity.name())
+                .bind("changeType", change.name())
+                .bind("entityIds", ids.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .bind("createdAt", LocalDateTime.now())
+                .then();
+    }
+}
@@ -0,0 +1,17 @@
+package com.rpolido.springboot2essentials.reactive.repository;
+
+import com.rpolido.springboot2essentials.domain.Anime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Extends the R2DBC flavour of {@code ReactiveCrudRepository}: with JPA on the classpath as well,
+ * Spring Data only assigns the repository to R2DBC when the store is explicit.
+ */
+public interface ReactiveAnimeRepository extends R2dbcRepository<Anime, Long> {
+
+    Flux<Anime> findByName(String name);
+
+    Flux<Anime> findAllBy(Pageable pageable);
+}
@@ -0,0 +1,93 @@
+package com.rpolido.springboot2essentials.reactive.service;
+
+import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeUpdateDTO;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.exception.AnimeNotFoundException;
+import com.rpolido.springboot2essentials.exception.BadRequestException;
+import com.rpolido.springboot2essentials.invalidation.InvalidationMessage;
+import com.rpolido.springboot2essentials.mapper.AnimeMapper;
+import com.rpolido.springboot2essentials.reactive.ReactiveAnimeApplication;
+import com.rpolido.springboot2essentials.reactive.invalidation.ReactiveInvalidationPublisher;
+import com.rpolido.springboot2essentials.reactive.repository.ReactiveAnimeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Writes record their change in {@code entity_change} in the same transaction, so the servlet
+ * instances sharing the database drop the animes they cached.
+ */
+@Service
+@Profile(ReactiveAnimeApplication.PROFILE)
+@RequiredArgsConstructor
+public class ReactiveAnimeService {
+
+    private final ReactiveAnimeRepository repository;
+    private final ReactiveInvalidationPublisher invalidationPublisher;
+
+    public Mono<Page<Anime>> listAll(Pageable pageable) {
+        return repository.findAllBy(pageable)
+                .collectList()
+                .zipWith(repository.count())
+                .map(animesAndTotal -> new PageImpl<>(animesAndTotal.getT1(), pageable, animesAndTotal.getT2()));
+    }
+
+    /**
+     * Emits the rows as the driver reads them, at the pace the subscriber requests them.
+     */
+    public Flux<Anime> listAllNonPaged() {
+        return repository.findAll();
+    }
+
+    public Flux<Anime> findByName(String name) {
+        return repository.findByName(name);
+    }
+
+    public Mono<Anime> findByIdOrThrowBadRequestException(long id) {
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(AnimeNotFoundException.INSTANCE));
+    }
+
+    @Transactional
+    public Mono<Anime> save(AnimeInsertDTO animeInsertDTO) {
+        return repository.save(AnimeMapper.INSTANCE.toAnime(animeInsertDTO))
+                .flatMap(anime -> publish(InvalidationMessage.Change.SAVED, anime.getId()).thenReturn(anime));
+    }
+
+    @Transactional
+    public Mono<Void> delete(long id) {
+        return findByIdOrThrowBadRequestException(id)
+                .flatMap(repository::delete)
+                .then(publish(InvalidationMessage.Change.DELETED, id));
+    }
+
+    @Transactional
+    public Mono<Void> replace(AnimeUpdateDTO animeUpdateDTO) {
+        if (animeUpdateDTO.getId() == null) {
+            return Mono.error(new BadRequestException("The anime id cannot be empty"));
+        }
+
+        return findByIdOrThrowBadRequestException(animeUpdateDTO.getId())
+                .map(savedAnime -> {
+                    final var anime = AnimeMapper.INSTANCE.toAnime(animeUpdateDTO);
+                    anime.setId(savedAnime.getId());
+                    anime.setVersion(savedAnime.getVersion());
+                    return anime;
+                })
+                .flatMap(repository::save)
+                .flatMap(anime -> publish(InvalidationMessage.Change.SAVED, anime.getId()));
+    }
+
+    private Mono<Void> publish(InvalidationMessage.Change change, long id) {
+        return invalidationPublisher.publish(InvalidationMessage.Entity.ANIME, change, List.of(id));
+    }
+}
@@ -0,0 +1,34 @@
+package com.rpolido.springboot2essentials.reactive.service;
+
+import com.rpolido.springboot2essentials.reactive.ReactiveAnimeApplication;
+import com.rpolido.springboot2essentials.security.GrantedAuthorities;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads the same dev_dojo_user table as {@code DevDojoUserDetailService}, through R2DBC.
+ */
+@Service
+@Profile(ReactiveAnimeApplication.PROFILE)
+@RequiredArgsConstructor
+public class ReactiveDevDojoUserDetailService implements ReactiveUserDetailsService {
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return databaseClient.sql("select username, password, authorities from dev_dojo_user where username = :username")
+                .bind("username", username)
+                .map(row -> User.withUsername(row.get("username", String.class))
+                        .password(row.get("password", String.class))
+                        .authorities(GrantedAuthorities.fromCommaSeparated(row.get("authorities", String.class)))
+                        .build())
+                .one();
+    }
+}
@@ -0,0 +1,21 @@
+package com.rpolido.springboot2essentials.repository;
+
+import com.rpolido.springboot2essentials.domain.Anime;
+
+import java.util.List;
+
+public interface AnimeBatchRepository {
+
+    /**
+     * Inserts every anime in a single JDBC batch and sets the generated ids and initial version back on them.
+     * Bypasses the persistence context, so the animes stay detached.
+     */
+    List<Anime> insertAllInBatch(List<Anime> animes);
+
+    /**
+     * Updates the name of every anime by id in a single JDBC batch, without loading them first,
+     * and bumps their version so ETags handed out before change. Returns the affected row count of each update, in the same order as the animes.
+     */
+    int[] updateNamesInBatch(List<Anime> animes);
+
+}
@@ -0,0 +1,102 @@
+package com.rpolido.springboot2essentials.repository;
+
+import com.rpolido.springboot2essentials.config.SecondLevelCacheConfig;
+import com.rpolido.springboot2essentials.domain.Anime;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Plain JDBC batching for {@link AnimeBatchRepository}. Hibernate turns insert batching off for
+ * IDENTITY ids, so large imports go through here instead. With {@code rewriteBatchedStatements}
+ * on the MySQL URL each batch is sent as one multi-row insert.
+ * <p>
+ * Hibernate does not see these writes, so the second-level cache entries and cached name queries
+ * they affect are evicted here, and again after commit in case a reader cached the old rows in between.
+ */
+@RequiredArgsConstructor
+public class AnimeBatchRepositoryImpl implements AnimeBatchRepository {
+
+    private static final String INSERT_SQL = "insert into anime (name, version) values (?, 0)";
+    private static final String UPDATE_NAME_SQL = "update anime set name = ?, version = version + 1 where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public List<Anime> insertAllInBatch(List<Anime> animes) {
+        final var inserted = jdbcTemplate.execute((ConnectionCallback<List<Anime>>) connection -> {
+            try (final var statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (final var anime : animes) {
+                    statement.setString(1, anime.getName());
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+
+                try (final var generatedKeys = statement.getGeneratedKeys()) {
+                    for (final var anime : animes) {
+                        if (!generatedKeys.next()) {
+                            break;
+                        }
+                        anime.setId(generatedKeys.getLong(1));
+                        anime.setVersion(0L);
+                    }
+                }
+            }
+            return animes;
+        });
+
+        evictFromSecondLevelCache(List.of());
+        return inserted;
+    }
+
+    @Override
+    public int[] updateNamesInBatch(List<Anime> animes) {
+        final var updateCounts = jdbcTemplate.batchUpdate(UPDATE_NAME_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setString(1, animes.get(i).getName());
+                statement.setLong(2, animes.get(i).getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return animes.size();
+            }
+        });
+
+        evictFromSecondLevelCache(animes);
+        return updateCounts;
+    }
+
+    private void evictFromSecondLevelCache(List<Anime> updatedAnimes) {
+
+        final var cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        final Runnable eviction = () -> {
+            updatedAnimes.forEach(anime -> cache.evictEntityData(Anime.class, anime.getId()));
+            cache.evictQueryRegion(SecondLevelCacheConfig.ANIME_BY_NAME_REGION);
+        };
+
+        eviction.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
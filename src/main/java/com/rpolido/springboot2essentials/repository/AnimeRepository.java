@@ -1,12 +1,63 @@
 package com.rpolido.springboot2essentials.repository;
 
+import com.rpolido.springboot2essentials.config.SecondLevelCacheConfig;
 import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.repository.projection.AnimeNameView;
+import com.rpolido.springboot2essentials.repository.projection.AnimeSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AnimeRepository extends JpaRepository<Anime, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
+public interface AnimeRepository extends JpaRepository<Anime, Long>, AnimeBatchRepository {
+
+    String SELECT_SUMMARY = "select new com.rpolido.springboot2essentials.repository.projection.AnimeSummary(a.id, a.name, a.version) from Anime a";
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = SecondLevelCacheConfig.ANIME_BY_NAME_REGION)
+    })
     List<Anime> findByName(String name);
 
+    @Query(value = SELECT_SUMMARY, countQuery = "select count(a) from Anime a")
+    Page<AnimeSummary> findAllSummaries(Pageable pageable);
+
+    @Query(SELECT_SUMMARY)
+    List<AnimeSummary> findAllSummaries();
+
+    @Query(SELECT_SUMMARY + " where a.id > :id order by a.id")
+    Slice<AnimeSummary> findSummariesAfter(@Param("id") long id, Pageable pageable);
+
+    @Query("select a.version from Anime a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    @Query("select a.id from Anime a where a.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Anime a where a.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_SUMMARY + " order by a.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<AnimeSummary> streamAllSummaries();
+
+    @Query("select a.id as id, a.name as name from Anime a")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<AnimeNameView> streamNames();
+
 }
@@ -1,10 +1,21 @@
 package com.rpolido.springboot2essentials.repository;
 
+import com.rpolido.springboot2essentials.config.SecondLevelCacheConfig;
 import com.rpolido.springboot2essentials.domain.DevDojoUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
 
 public interface DevDojoUserRepository extends JpaRepository<DevDojoUser, Long> {
 
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = SecondLevelCacheConfig.DEV_DOJO_USER_BY_USERNAME_REGION)
+    })
     DevDojoUser findByUsername(String name);
 
 }
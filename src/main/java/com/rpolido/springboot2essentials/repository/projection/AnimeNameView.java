@@ -0,0 +1,11 @@
+package com.rpolido.springboot2essentials.repository.projection;
+
+/**
+ * Closed projection with just what the search index needs, so rebuilding it does not hydrate entities.
+ */
+public interface AnimeNameView {
+
+    Long getId();
+
+    String getName();
+}
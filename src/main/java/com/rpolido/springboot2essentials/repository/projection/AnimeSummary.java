@@ -0,0 +1,9 @@
+package com.rpolido.springboot2essentials.repository.projection;
+
+/**
+ * Read model of an anime for the list and export endpoints, built by constructor expressions in
+ * the repository queries. Listing animes this way never hydrates entities, so there is no
+ * persistence context entry, snapshot or proxy per row. Serializes to the same JSON as the entity.
+ */
+public record AnimeSummary(Long id, String name, Long version) {
+}
@@ -0,0 +1,295 @@
+package com.rpolido.springboot2essentials.search;
+
+import com.rpolido.springboot2essentials.controller.dto.AnimeSearchHitDTO;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import com.rpolido.springboot2essentials.event.CachesStaleEvent;
+import com.rpolido.springboot2essentials.repository.AnimeRepository;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index over every anime name, so search and autocomplete never reach the database.
+ * Names are normalized (lower case, no accents or punctuation) and indexed twice: as sorted keys
+ * starting at every word, for prefix lookups, and as trigrams, for contains and fuzzy matching.
+ * It is filled from the database once the application is ready and then follows {@link AnimeChangedEvent}s.
+ */
+@Component
+@Log4j2
+public class AnimeSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final double EXACT = 3;
+    private static final double PREFIX = 2;
+    private static final double CONTAINS = 1;
+
+    private static final Comparator<AnimeSearchHitDTO> BY_RELEVANCE = Comparator
+            .comparingDouble(AnimeSearchHitDTO::getScore).reversed()
+            .thenComparing(AnimeSearchHitDTO::getName)
+            .thenComparingLong(AnimeSearchHitDTO::getId);
+
+    private final AnimeRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final double minimumSimilarity;
+
+    private final ConcurrentMap<Long, IndexedName> names = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, Long> wordPrefixes = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    public AnimeSearchIndex(AnimeRepository repository, PlatformTransactionManager transactionManager,
+                            @Value("${app.anime-search.minimum-similarity:0.3}") double minimumSimilarity) {
+
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.minimumSimilarity = minimumSimilarity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+
+        final var started = System.nanoTime();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try (final var animes = repository.streamNames()) {
+                animes.forEach(anime -> index(anime.getId(), anime.getName()));
+            }
+        });
+
+        log.info("Indexed {} anime names in {} ms", names.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Starts over from the database. Left empty when it cannot be read, rather than stale.
+     */
+    @EventListener(CachesStaleEvent.class)
+    public void onCachesStale() {
+        clear();
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the anime search index: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        if (event.getType() == AnimeChangedEvent.ChangeType.DELETED) {
+            event.getIds().forEach(this::remove);
+            return;
+        }
+
+        event.getAnimes().stream()
+                .filter(anime -> anime.getId() != null)
+                .forEach(anime -> index(anime.getId(), anime.getName()));
+    }
+
+    public synchronized void index(long id, String name) {
+
+        remove(id);
+
+        final var indexed = new IndexedName(id, name, normalize(name));
+        indexed.getGrams().forEach(gram -> postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id));
+        wordSuffixes(indexed.getNormalized()).forEach(suffix -> wordPrefixes.put(suffix + KEY_SEPARATOR + id, id));
+
+        names.put(id, indexed);
+    }
+
+    public synchronized void remove(long id) {
+
+        final var indexed = names.remove(id);
+        if (indexed == null) {
+            return;
+        }
+
+        indexed.getGrams().forEach(gram -> postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        }));
+        wordSuffixes(indexed.getNormalized()).forEach(suffix -> wordPrefixes.remove(suffix + KEY_SEPARATOR + id));
+    }
+
+    public synchronized void clear() {
+        names.clear();
+        wordPrefixes.clear();
+        postings.clear();
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Names with a word starting with {@code prefix}, exact matches first. Only walks the matching
+     * range of the sorted word keys, so the cost does not grow with the size of the index.
+     */
+    public List<AnimeSearchHitDTO> autocomplete(String prefix, int limit) {
+
+        final var normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        final var ids = new LinkedHashSet<Long>();
+        for (final var id : wordPrefixes.subMap(normalized, normalized + Character.MAX_VALUE).values()) {
+            if (ids.add(id) && ids.size() == limit) {
+                break;
+            }
+        }
+
+        return ids.stream()
+                .map(names::get)
+                .filter(Objects::nonNull)
+                .map(indexed -> toHit(indexed, rank(indexed.getNormalized(), normalized)))
+                .sorted(BY_RELEVANCE)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Ranks exact matches first, then names with a word starting with the query, then names
+     * containing it and finally names sharing enough trigrams with it. Within a rank, names more
+     * similar to the query come first. Queries shorter than a trigram only match word prefixes.
+     */
+    public Page<AnimeSearchHitDTO> search(String query, Pageable pageable) {
+
+        final var normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        final var hits = normalized.length() < GRAM_SIZE
+                ? autocomplete(normalized, Integer.MAX_VALUE)
+                : searchByGrams(normalized);
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(hits, pageable, hits.size());
+        }
+
+        final var fromIndex = (int) Math.min(pageable.getOffset(), hits.size());
+        final var toIndex = Math.min(fromIndex + pageable.getPageSize(), hits.size());
+
+        return new PageImpl<>(hits.subList(fromIndex, toIndex), pageable, hits.size());
+    }
+
+    private List<AnimeSearchHitDTO> searchByGrams(String normalized) {
+
+        final var queryGrams = grams(normalized);
+        final Map<Long, Integer> sharedGrams = new HashMap<>();
+        queryGrams.forEach(gram -> postings.getOrDefault(gram, Set.of())
+                .forEach(id -> sharedGrams.merge(id, 1, Integer::sum)));
+
+        final var hits = new ArrayList<AnimeSearchHitDTO>();
+        sharedGrams.forEach((id, shared) -> {
+            final var indexed = names.get(id);
+            if (indexed == null) {
+                return;
+            }
+
+            final var similarity = (double) shared / (queryGrams.size() + indexed.getGrams().size() - shared);
+            final var rank = rank(indexed.getNormalized(), normalized);
+
+            if (rank > 0 || similarity >= minimumSimilarity) {
+                hits.add(toHit(indexed, rank + similarity));
+            }
+        });
+
+        hits.sort(BY_RELEVANCE);
+        return hits;
+    }
+
+    private static double rank(String name, String query) {
+        if (name.equals(query)) {
+            return EXACT;
+        }
+        if (name.startsWith(query) || name.contains(" " + query)) {
+            return PREFIX;
+        }
+        return name.contains(query) ? CONTAINS : 0;
+    }
+
+    private static AnimeSearchHitDTO toHit(IndexedName indexed, double score) {
+        return AnimeSearchHitDTO.builder()
+                .id(indexed.getId())
+                .name(indexed.getName())
+                .score(score)
+                .build();
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        final var withoutDiacritics = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(withoutDiacritics.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    static Set<String> grams(String normalized) {
+        if (normalized.length() <= GRAM_SIZE) {
+            return Set.of(normalized);
+        }
+
+        final var grams = new LinkedHashSet<String>();
+        for (var i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static List<String> wordSuffixes(String normalized) {
+        final var suffixes = new ArrayList<String>();
+        for (var i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                suffixes.add(normalized.substring(i));
+            }
+        }
+        return suffixes;
+    }
+
+    @Getter
+    private static class IndexedName {
+
+        private final long id;
+        private final String name;
+        private final String normalized;
+        private final Set<String> grams;
+
+        IndexedName(long id, String name, String normalized) {
+            this.id = id;
+            this.name = name;
+            this.normalized = normalized;
+            this.grams = normalized.isEmpty() ? Set.of() : grams(normalized);
+        }
+    }
+}
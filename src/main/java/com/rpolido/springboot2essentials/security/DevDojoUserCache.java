@@ -0,0 +1,58 @@
+package com.rpolido.springboot2essentials.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rpolido.springboot2essentials.event.CachesStaleEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded {@link UserCache} for the authentication provider, so HTTP Basic requests stop
+ * querying the users table on every call. Entries expire after the configured TTL and are
+ * evicted as soon as the user is updated or removed, here or on another instance.
+ */
+@Component
+public class DevDojoUserCache implements UserCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    public DevDojoUserCache(@Value("${app.security.user-cache.maximum-size:1000}") long maximumSize,
+                            @Value("${app.security.user-cache.time-to-live:5m}") Duration timeToLive,
+                            MeterRegistry meterRegistry) {
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "devdojo-users");
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(username);
+    }
+
+    @EventListener(CachesStaleEvent.class)
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,68 @@
+package com.rpolido.springboot2essentials.security;
+
+import com.rpolido.springboot2essentials.domain.DevDojoUser;
+import com.rpolido.springboot2essentials.invalidation.InvalidationBus;
+import com.rpolido.springboot2essentials.invalidation.InvalidationMessage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JPA entity listener evicting a user from {@link DevDojoUserCache} when the row changes. It
+ * evicts right away and once more after commit, so a login racing the transaction cannot keep
+ * the old details cached. An update may have renamed the user, and the cache is keyed by the
+ * old username, so updates drop the whole cache. Every change, inserts included, is also sent
+ * to the other instances through the {@link InvalidationBus}, within the same transaction.
+ */
+public class DevDojoUserCacheInvalidator {
+
+    private final ObjectProvider<DevDojoUserCache> userCache;
+    private final ObjectProvider<InvalidationBus> invalidationBus;
+
+    public DevDojoUserCacheInvalidator(ObjectProvider<DevDojoUserCache> userCache,
+                                       ObjectProvider<InvalidationBus> invalidationBus) {
+        this.userCache = userCache;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @PostPersist
+    public void inserted(DevDojoUser user) {
+        publish(user, InvalidationMessage.Change.SAVED);
+    }
+
+    @PostUpdate
+    public void updated(DevDojoUser user) {
+        evict(DevDojoUserCache::invalidateAll);
+        publish(user, InvalidationMessage.Change.SAVED);
+    }
+
+    @PostRemove
+    public void removed(DevDojoUser user) {
+        final var username = user.getUsername();
+        evict(cache -> cache.removeUserFromCache(username));
+        publish(user, InvalidationMessage.Change.DELETED);
+    }
+
+    private void evict(Consumer<DevDojoUserCache> eviction) {
+        userCache.ifAvailable(eviction);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.ifAvailable(eviction);
+                }
+            });
+        }
+    }
+
+    private void publish(DevDojoUser user, InvalidationMessage.Change change) {
+        invalidationBus.ifAvailable(bus -> bus.publish(InvalidationMessage.Entity.DEV_DOJO_USER, change, List.of(user.getId())));
+    }
+}
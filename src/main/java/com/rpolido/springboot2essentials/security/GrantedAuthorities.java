@@ -0,0 +1,66 @@
+package com.rpolido.springboot2essentials.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Parses comma separated authority strings and hands out immutable sets of
+ * {@link SimpleGrantedAuthority}. The roles the application checks are interned, and sets made
+ * only of them are shared, so the usual users cost a map lookup instead of a split and fresh
+ * allocations. Any other authority string is parsed every time, which keeps the shared instances
+ * bounded whatever the tokens and user rows contain.
+ */
+public final class GrantedAuthorities {
+
+    private static final Map<String, GrantedAuthority> KNOWN_AUTHORITIES = Stream.of("ROLE_USER", "ROLE_ADMIN")
+            .collect(Collectors.toUnmodifiableMap(Function.identity(), SimpleGrantedAuthority::new));
+    private static final int MAX_SHARED_SETS = 64;
+    private static final ConcurrentMap<String, Set<GrantedAuthority>> SHARED_SETS = new ConcurrentHashMap<>();
+
+    private GrantedAuthorities() {
+    }
+
+    public static Set<GrantedAuthority> fromCommaSeparated(String authorities) {
+        if (authorities == null || authorities.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        final var shared = SHARED_SETS.get(authorities);
+        if (shared != null) {
+            return shared;
+        }
+
+        final var parsed = parse(authorities);
+        if (SHARED_SETS.size() < MAX_SHARED_SETS && parsed.stream().allMatch(GrantedAuthorities::isKnown)) {
+            return SHARED_SETS.computeIfAbsent(authorities, key -> parsed);
+        }
+        return parsed;
+    }
+
+    private static Set<GrantedAuthority> parse(String authorities) {
+        return Collections.unmodifiableSet(Arrays.stream(authorities.split(","))
+                .filter(authority -> !authority.isEmpty())
+                .map(GrantedAuthorities::intern)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+    }
+
+    private static GrantedAuthority intern(String authority) {
+        final var known = KNOWN_AUTHORITIES.get(authority);
+        return known != null ? known : new SimpleGrantedAuthority(authority);
+    }
+
+    private static boolean isKnown(GrantedAuthority authority) {
+        return KNOWN_AUTHORITIES.get(authority.getAuthority()) == authority;
+    }
+}
@@ -0,0 +1,112 @@
+package com.rpolido.springboot2essentials.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Delegating password encoder that remembers successful checks for a short time, so repeated
+ * HTTP Basic requests with the same credentials skip bcrypt.
+ * <p>
+ * Only an HMAC of the raw password and the stored hash is kept, keyed with a random secret that
+ * never leaves the process. Changing the password changes the stored hash, so old entries stop
+ * matching on their own.
+ */
+@Component
+public class MemoizingPasswordEncoder implements PasswordEncoder {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final PasswordEncoder delegate = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    private final Cache<String, Long> successfulMatches;
+    private final Counter timeSaved;
+    private final ThreadLocal<Mac> mac;
+
+    public MemoizingPasswordEncoder(@Value("${app.security.credentials-memo.maximum-size:10000}") long maximumSize,
+                                    @Value("${app.security.credentials-memo.time-to-live:5m}") Duration timeToLive,
+                                    MeterRegistry meterRegistry) {
+
+        this.successfulMatches = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+
+        this.timeSaved = Counter.builder("auth.credentials.time.saved")
+                .description("Password verification time skipped thanks to remembered matches")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, successfulMatches, "credentials-memo");
+
+        final var secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        final var key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                final var instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+
+        final var key = fingerprint(rawPassword, encodedPassword);
+        final var savedNanos = successfulMatches.getIfPresent(key);
+
+        if (savedNanos != null) {
+            timeSaved.increment(savedNanos / 1_000_000_000d);
+            return true;
+        }
+
+        final var start = System.nanoTime();
+        final var matches = delegate.matches(rawPassword, encodedPassword);
+
+        if (matches) {
+            successfulMatches.put(key, System.nanoTime() - start);
+        }
+
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private String fingerprint(CharSequence rawPassword, String encodedPassword) {
+        final var hmac = mac.get();
+        hmac.update(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        hmac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hmac.doFinal());
+    }
+}
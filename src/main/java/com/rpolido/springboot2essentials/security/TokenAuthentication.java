@@ -0,0 +1,31 @@
+package com.rpolido.springboot2essentials.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Transient;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Authentication rebuilt from a verified signed token. It is {@link Transient} so it is never
+ * stored in the HTTP session: every request carries its own token.
+ */
+@Transient
+public class TokenAuthentication extends AbstractAuthenticationToken {
+
+    private final UserDetails principal;
+
+    public TokenAuthentication(UserDetails principal) {
+        super(principal.getAuthorities());
+        this.principal = principal;
+        setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public UserDetails getPrincipal() {
+        return principal;
+    }
+}
@@ -0,0 +1,123 @@
+package com.rpolido.springboot2essentials.security;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and verifies compact HMAC-SHA256 signed tokens of the form
+ * {@code base64url(username \n expiresAt \n authorities) . base64url(signature)}.
+ * <p>
+ * Verification is a local HMAC and an expiry check, no database or password hashing involved.
+ * Set {@code app.security.token.secret} (Base64, at least 32 bytes) so tokens survive restarts
+ * and are accepted by every replica; without it a random key is generated at startup.
+ */
+@Component
+@Log4j2
+public class TokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final ThreadLocal<Mac> mac;
+
+    @Autowired
+    public TokenService(@Value("${app.security.token.secret:}") String secret,
+                        @Value("${app.security.token.time-to-live:1h}") Duration timeToLive) {
+        this(secret, timeToLive, Clock.systemUTC());
+    }
+
+    TokenService(String secret, Duration timeToLive, Clock clock) {
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+
+        final var key = new SecretKeySpec(secretBytes(secret), HMAC_ALGORITHM);
+
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                final var instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public String issue(Authentication authentication) {
+        final var expiresAt = clock.instant().plus(timeToLive).getEpochSecond();
+        final var authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+
+        final var payload = ENCODER.encodeToString(
+                (authentication.getName() + "\n" + expiresAt + "\n" + authorities).getBytes(StandardCharsets.UTF_8));
+
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    public Optional<TokenAuthentication> verify(String token) {
+        final var separator = token.indexOf('.');
+        if (separator <= 0) {
+            return Optional.empty();
+        }
+
+        final var payload = token.substring(0, separator);
+
+        try {
+            final var signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+
+            final var claims = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split("\n", -1);
+            if (claims.length != 3 || Long.parseLong(claims[1]) <= clock.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+
+            final var principal = new User(claims[0], "", GrantedAuthorities.fromCommaSeparated(claims[2]));
+            return Optional.of(new TokenAuthentication(principal));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (!secret.isBlank()) {
+            return Base64.getDecoder().decode(secret);
+        }
+
+        log.warn("app.security.token.secret is not set, tokens will only be valid on this instance until it restarts");
+
+        final var generated = new byte[32];
+        new SecureRandom().nextBytes(generated);
+        return generated;
+    }
+}
@@ -1,58 +1,416 @@
 package com.rpolido.springboot2essentials.service;
 
+import com.rpolido.springboot2essentials.cache.AnimeCache;
+import com.rpolido.springboot2essentials.controller.dto.AnimeBulkItemResultDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeBulkMutationResultDTO;
 import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeLookupItemDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeSearchHitDTO;
 import com.rpolido.springboot2essentials.controller.dto.AnimeUpdateDTO;
 import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import com.rpolido.springboot2essentials.exception.AnimeNotFoundException;
 import com.rpolido.springboot2essentials.exception.BadRequestException;
+import com.rpolido.springboot2essentials.exception.PreconditionFailedException;
 import com.rpolido.springboot2essentials.mapper.AnimeMapper;
+import com.rpolido.springboot2essentials.metrics.AnimeMetrics;
 import com.rpolido.springboot2essentials.repository.AnimeRepository;
-import lombok.RequiredArgsConstructor;
+import com.rpolido.springboot2essentials.repository.projection.AnimeSummary;
+import com.rpolido.springboot2essentials.search.AnimeSearchIndex;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+/**
+ * Every method runs in a read-only transaction unless it says otherwise. Spring opens those with
+ * {@code FlushMode.MANUAL} and a read-only Hibernate session, so the loaded animes get no dirty
+ * checking snapshot and nothing is flushed, and with a read replica they run there. Writes each
+ * run in a single read-write transaction, including the read they start with.
+ * <p>
+ * Methods answered from {@link AnimeCache} or {@link AnimeSearchIndex} only join a transaction,
+ * so a cache hit never takes a connection, and the loads on a miss get the repository's own
+ * read-only one.
+ */
 @Service
-@RequiredArgsConstructor
+@Log4j2
+@Transactional(readOnly = true)
 public class AnimeService {
 
+    private static final String TIMER = "anime.service";
+
     private final AnimeRepository repository;
+    private final AnimeCache animeCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final AnimeSearchIndex searchIndex;
+    private final AnimeMetrics animeMetrics;
+    private final int bulkChunkSize;
+    private final int lookupMaxIds;
+
+    public AnimeService(AnimeRepository repository,
+                        AnimeCache animeCache,
+                        ApplicationEventPublisher eventPublisher,
+                        Validator validator,
+                        TransactionTemplate transactionTemplate,
+                        AnimeSearchIndex searchIndex,
+                        AnimeMetrics animeMetrics,
+                        @Value("${app.anime-bulk.chunk-size:500}") int bulkChunkSize,
+                        @Value("${app.anime-lookup.max-ids:100}") int lookupMaxIds) {
+
+        this.repository = repository;
+        this.animeCache = animeCache;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.searchIndex = searchIndex;
+        this.animeMetrics = animeMetrics;
+        this.bulkChunkSize = bulkChunkSize;
+        this.lookupMaxIds = lookupMaxIds;
+    }
+
+    /**
+     * Lists read models instead of entities, as the page only goes on to be serialized.
+     */
+    @Timed(TIMER)
+    public Page<AnimeSummary> listAll(Pageable pageable) {
+        return repository.findAllSummaries(pageable);
+    }
+
+    /**
+     * Keyset page: seeks past {@code after} on the primary key instead of skipping an offset,
+     * and returns a {@link Slice} so no count query is issued.
+     */
+    @Timed(TIMER)
+    public Slice<AnimeSummary> listAfter(long after, int size) {
+        return repository.findSummariesAfter(after, PageRequest.of(0, size));
+    }
 
-    public Page<Anime> listAll(Pageable pageable) {
-        return repository.findAll(pageable);
+    @Timed(TIMER)
+    public List<AnimeSummary> listAllNonPaged() {
+        return repository.findAllSummaries();
     }
 
-    public List<Anime> listAllNonPaged() {
-        return repository.findAll();
+    /**
+     * Hands every anime to the consumer as it is read from the database cursor. They are read
+     * models, so nothing piles up in the persistence context whatever the table size.
+     */
+    @Timed(TIMER)
+    public void streamAll(Consumer<AnimeSummary> consumer) {
+        try (final var animes = repository.streamAllSummaries()) {
+            animes.forEach(consumer);
+        }
     }
 
+    @Timed(TIMER)
     public List<Anime> findByName(String name) {
         return repository.findByName(name);
     }
 
+    @Timed(TIMER)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<AnimeSearchHitDTO> search(String query, Pageable pageable) {
+        return searchIndex.search(query, pageable);
+    }
+
+    @Timed(TIMER)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<AnimeSearchHitDTO> autocomplete(String prefix, int limit) {
+        return searchIndex.autocomplete(prefix, limit);
+    }
+
+    @Timed(TIMER)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Anime findByIdOrThrowBadRequestException(long id) {
-        return repository.findById(id)
-                .orElseThrow(() -> new BadRequestException("Anime not Found"));
+        return animeCache.get(id, repository::findById)
+                .orElseThrow(() -> AnimeNotFoundException.INSTANCE);
     }
 
+    /**
+     * Looks up many animes at once: cached ones are served from the cache and all the others are
+     * read with a single {@code where id in} query. The results follow the order of {@code ids},
+     * repeated ids included, with a NOT_FOUND item for every id that does not exist.
+     */
+    @Timed(TIMER)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<AnimeLookupItemDTO> findAllById(List<Long> ids) {
+
+        if (ids.size() > lookupMaxIds) {
+            throw new BadRequestException("At most " + lookupMaxIds + " ids can be looked up at once");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException("The ids cannot be empty");
+        }
+
+        final var animes = animeCache.getAll(new LinkedHashSet<>(ids), repository::findAllById);
+
+        return ids.stream()
+                .map(id -> animes.getOrDefault(id, Optional.empty())
+                        .map(anime -> AnimeLookupItemDTO.builder().id(id).status(AnimeLookupItemDTO.Status.FOUND).anime(anime).build())
+                        .orElseGet(() -> AnimeLookupItemDTO.builder().id(id).status(AnimeLookupItemDTO.Status.NOT_FOUND).build()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The current version of the anime, from the cache when it holds the anime and otherwise from
+     * a query on the version column alone, so conditional requests never load the entity.
+     */
+    @Timed(TIMER)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<Long> findVersion(long id) {
+        return animeCache.getVersionIfPresent(id).or(() -> repository.findVersionById(id));
+    }
+
+    @Timed(TIMER)
     @Transactional
     public Anime save(AnimeInsertDTO animeInsertDTO) {
-        return repository.save(AnimeMapper.INSTANCE.toAnime(animeInsertDTO));
+        final var savedAnime = repository.save(toAnime(animeInsertDTO));
+        eventPublisher.publishEvent(AnimeChangedEvent.saved(List.of(savedAnime)));
+        return savedAnime;
+    }
+
+    /**
+     * Validates each anime and inserts the valid ones in JDBC batches of {@code app.anime-bulk.chunk-size},
+     * one transaction per chunk, so a failing chunk does not roll back the ones already stored.
+     * The animes are consumed lazily, which lets callers stream very large inputs. A null anime,
+     * such as a {@code null} NDJSON line, is reported INVALID like any other invalid one.
+     */
+    @Timed(TIMER)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<AnimeBulkItemResultDTO> saveAll(Iterator<AnimeInsertDTO> animeInsertDTOs) {
+
+        final var results = new ArrayList<AnimeBulkItemResultDTO>();
+        final var chunk = new ArrayList<AnimeBulkItemResultDTO>(bulkChunkSize);
+        final var chunkAnimes = new ArrayList<Anime>(bulkChunkSize);
+        var index = 0;
+
+        while (animeInsertDTOs.hasNext()) {
+            final var animeInsertDTO = animeInsertDTOs.next();
+            final var violations = validate(animeInsertDTO);
+
+            if (violations.isPresent()) {
+                results.add(AnimeBulkItemResultDTO.builder()
+                        .index(index++)
+                        .status(AnimeBulkItemResultDTO.Status.INVALID)
+                        .message(violations.get())
+                        .build());
+                continue;
+            }
+
+            chunk.add(AnimeBulkItemResultDTO.builder().index(index++).build());
+            chunkAnimes.add(toAnime(animeInsertDTO));
+
+            if (chunkAnimes.size() == bulkChunkSize) {
+                results.addAll(insertChunk(chunk, chunkAnimes));
+                chunk.clear();
+                chunkAnimes.clear();
+            }
+        }
+
+        if (!chunkAnimes.isEmpty()) {
+            results.addAll(insertChunk(chunk, chunkAnimes));
+        }
+
+        results.sort(Comparator.comparingInt(AnimeBulkItemResultDTO::getIndex));
+        return results;
+    }
+
+    private List<AnimeBulkItemResultDTO> insertChunk(List<AnimeBulkItemResultDTO> chunk, List<Anime> animes) {
+        try {
+            final var savedAnimes = transactionTemplate.execute(status -> {
+                final var inserted = repository.insertAllInBatch(animes);
+                eventPublisher.publishEvent(AnimeChangedEvent.saved(inserted));
+                return inserted;
+            });
+
+            for (var i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setStatus(AnimeBulkItemResultDTO.Status.CREATED);
+                chunk.get(i).setId(savedAnimes.get(i).getId());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Bulk insert of {} animes failed", animes.size(), e);
+            chunk.forEach(result -> {
+                result.setStatus(AnimeBulkItemResultDTO.Status.FAILED);
+                result.setMessage(e.getMostSpecificCause().getMessage());
+            });
+        }
+        return new ArrayList<>(chunk);
     }
 
+    @Timed(TIMER)
+    @Transactional
     public void delete(long id) {
-        repository.delete(findByIdOrThrowBadRequestException(id));
+        repository.delete(repository.findById(id).orElseThrow(() -> AnimeNotFoundException.INSTANCE));
+        eventPublisher.publishEvent(AnimeChangedEvent.deleted(List.of(id)));
     }
 
-    public void replace(AnimeUpdateDTO animeUpdateDTO) {
+    /**
+     * Replaces the anime, failing when {@code requiredVersion} is given and the anime has changed
+     * since. The update itself is guarded by the version too, so a replace racing this one is
+     * rejected with an optimistic locking failure instead of being silently overwritten.
+     */
+    @Timed(TIMER)
+    @Transactional
+    public Anime replace(AnimeUpdateDTO animeUpdateDTO, @Nullable Long requiredVersion) {
+
+        final var savedAnime = repository.findById(animeUpdateDTO.getId())
+                .orElseThrow(() -> AnimeNotFoundException.INSTANCE);
 
-        final var savedAnime = findByIdOrThrowBadRequestException(animeUpdateDTO.getId());
+        if (requiredVersion != null && !requiredVersion.equals(savedAnime.getVersion())) {
+            throw new PreconditionFailedException("The anime was changed since version " + requiredVersion);
+        }
 
-        final var anime = AnimeMapper.INSTANCE.toAnime(animeUpdateDTO);
+        final var anime = toAnime(animeUpdateDTO);
         anime.setId(savedAnime.getId());
+        anime.setVersion(savedAnime.getVersion());
+
+        final var replacedAnime = repository.saveAndFlush(anime);
+        eventPublisher.publishEvent(AnimeChangedEvent.saved(List.of(replacedAnime)));
+        return replacedAnime;
+    }
+
+    /**
+     * Renames the given animes with one existence query and one JDBC batch of updates, instead of
+     * a select and a merge per anime. When an id appears twice the last name wins. Rows deleted
+     * between the two come back as not found, per the update counts of the batch. Each anime is
+     * validated on its own and the invalid ones are reported by index, the others still renamed.
+     */
+    @Timed(TIMER)
+    @Transactional
+    public AnimeBulkMutationResultDTO replaceAll(List<AnimeUpdateDTO> animeUpdateDTOs) {
+
+        final var namesById = new LinkedHashMap<Long, String>();
+        final var invalid = new ArrayList<AnimeBulkItemResultDTO>();
+
+        for (var index = 0; index < animeUpdateDTOs.size(); index++) {
+            final var animeUpdateDTO = animeUpdateDTOs.get(index);
+            final var violations = validate(animeUpdateDTO);
+
+            if (violations.isPresent()) {
+                invalid.add(AnimeBulkItemResultDTO.builder()
+                        .index(index)
+                        .status(AnimeBulkItemResultDTO.Status.INVALID)
+                        .id(animeUpdateDTO == null ? null : animeUpdateDTO.getId())
+                        .message(violations.get())
+                        .build());
+                continue;
+            }
+            namesById.put(animeUpdateDTO.getId(), animeUpdateDTO.getName());
+        }
+
+        if (namesById.isEmpty()) {
+            return AnimeBulkMutationResultDTO.builder().notFound(List.of()).invalid(invalid).build();
+        }
+
+        final var existingIds = new HashSet<>(repository.findExistingIds(namesById.keySet()));
+        final var animes = namesById.entrySet().stream()
+                .filter(entry -> existingIds.contains(entry.getKey()))
+                .map(entry -> Anime.builder().id(entry.getKey()).name(entry.getValue()).build())
+                .collect(Collectors.toList());
+
+        final var updated = new ArrayList<Anime>(animes.size());
+        if (!animes.isEmpty()) {
+            final var updateCounts = repository.updateNamesInBatch(animes);
+            for (var i = 0; i < animes.size(); i++) {
+                // a driver that rewrites the batch may not know the count, the row existed a moment ago
+                if (updateCounts[i] > 0 || updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                    updated.add(animes.get(i));
+                }
+            }
+        }
+
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(AnimeChangedEvent.saved(updated));
+        }
+
+        final var updatedIds = updated.stream().map(Anime::getId).collect(Collectors.toSet());
+        return AnimeBulkMutationResultDTO.builder()
+                .affected(updated.size())
+                .notFound(notFound(namesById.keySet(), updatedIds))
+                .invalid(invalid)
+                .build();
+    }
+
+    /**
+     * Deletes the given animes with one existence query and a single {@code delete ... where id in}
+     * statement, without loading any of them.
+     */
+    @Timed(TIMER)
+    @Transactional
+    public AnimeBulkMutationResultDTO deleteAll(Collection<Long> ids) {
+
+        final var distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return AnimeBulkMutationResultDTO.builder().notFound(List.of()).build();
+        }
+
+        final var existingIds = new HashSet<>(repository.findExistingIds(distinctIds));
+        var affected = 0;
+
+        if (!existingIds.isEmpty()) {
+            affected = repository.deleteByIdIn(existingIds);
+            eventPublisher.publishEvent(AnimeChangedEvent.deleted(existingIds));
+        }
+
+        return AnimeBulkMutationResultDTO.builder()
+                .affected(affected)
+                .notFound(notFound(distinctIds, existingIds))
+                .build();
+    }
+
+    /**
+     * The constraint violations of a bulk item joined in one message, if it has any. The
+     * {@link Validator} rejects a null object, so a missing item is reported here instead.
+     */
+    private Optional<String> validate(@Nullable Object item) {
+        if (item == null) {
+            return Optional.of("The anime cannot be null");
+        }
+
+        final var violations = validator.validate(item);
+        return violations.isEmpty()
+                ? Optional.empty()
+                : Optional.of(violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(", ")));
+    }
+
+    private Anime toAnime(AnimeInsertDTO animeInsertDTO) {
+        return animeMetrics.recordMapping(() -> AnimeMapper.INSTANCE.toAnime(animeInsertDTO));
+    }
+
+    private Anime toAnime(AnimeUpdateDTO animeUpdateDTO) {
+        return animeMetrics.recordMapping(() -> AnimeMapper.INSTANCE.toAnime(animeUpdateDTO));
+    }
 
-        repository.save(anime);
+    private static List<Long> notFound(Collection<Long> requestedIds, Collection<Long> existingIds) {
+        return requestedIds.stream()
+                .filter(id -> !existingIds.contains(id))
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,108 @@
+package com.rpolido.springboot2essentials.util;
+
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.exception.PreconditionFailedException;
+import com.rpolido.springboot2essentials.repository.projection.AnimeSummary;
+import org.springframework.data.domain.Page;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Strong ETags built from anime ids and versions, so they never need the serialized body.
+ * A single anime is tagged {@code "<id>-<version>"}, which can be checked against a version
+ * lookup alone, and a list with a digest of every id and version it holds.
+ */
+public final class AnimeETags {
+
+    private static final String WEAK_PREFIX = "W/";
+    private static final int DIGEST_BYTES = 16;
+
+    private AnimeETags() {
+    }
+
+    public static String of(long id, long version) {
+        return quote(id + "-" + version);
+    }
+
+    public static String of(Anime anime) {
+        return of(anime.getId(), anime.getVersion());
+    }
+
+    public static String of(Collection<AnimeSummary> animes) {
+        return quote(digest(animes, ByteBuffer.allocate(Long.BYTES).putLong(animes.size())));
+    }
+
+    public static String of(Page<AnimeSummary> page) {
+        final var metadata = ByteBuffer.allocate(Long.BYTES * 3)
+                .putLong(page.getNumber())
+                .putLong(page.getSize())
+                .putLong(page.getTotalElements());
+        return quote(digest(page.getContent(), metadata));
+    }
+
+    /**
+     * Whether any tag of an {@code If-None-Match} header matches, compared weakly as RFC 7232 asks.
+     */
+    public static boolean matchesAny(String ifNoneMatch, String etag) {
+        for (final var candidate : ifNoneMatch.split(",")) {
+            final var tag = candidate.trim();
+            if ("*".equals(tag) || etag.equals(tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The version an {@code If-Match} header requires for the anime. A tag for another anime,
+     * a weak tag or anything else that cannot be a tag handed out by {@link #of(Anime)} fails
+     * the precondition right away.
+     */
+    public static long requiredVersion(String ifMatch, long id) {
+
+        final var tag = ifMatch.trim();
+        final var prefix = "\"" + id + "-";
+
+        if (tag.startsWith(WEAK_PREFIX) || !tag.startsWith(prefix) || !tag.endsWith("\"")) {
+            throw new PreconditionFailedException("The If-Match header does not match the current anime");
+        }
+
+        try {
+            return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("The If-Match header does not match the current anime");
+        }
+    }
+
+    private static String digest(Collection<AnimeSummary> animes, ByteBuffer prefix) {
+
+        final var digest = sha256();
+        digest.update(prefix.array());
+
+        final var buffer = ByteBuffer.allocate(Long.BYTES * 2);
+        for (final var anime : animes) {
+            buffer.clear();
+            buffer.putLong(anime.id()).putLong(anime.version() == null ? 0 : anime.version());
+            digest.update(buffer.array());
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), DIGEST_BYTES));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -0,0 +1,61 @@
+package com.rpolido.springboot2essentials.wrapper;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.rpolido.springboot2essentials.exception.BadRequestException;
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keyset counterpart of {@link PageableResponse}: no total count, just the rows and an opaque
+ * cursor pointing after the last one.
+ */
+@Getter
+public class CursorResponse<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final int numberOfElements;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
+    public CursorResponse(@JsonProperty("content") List<T> content,
+                          @JsonProperty("size") int size,
+                          @JsonProperty("numberOfElements") int numberOfElements,
+                          @JsonProperty("hasNext") boolean hasNext,
+                          @JsonProperty("nextCursor") String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.numberOfElements = numberOfElements;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> CursorResponse<T> of(Slice<T> slice, ToLongFunction<T> keyExtractor) {
+        final var content = slice.getContent();
+        final var nextCursor = slice.hasNext()
+                ? encodeCursor(keyExtractor.applyAsLong(content.get(content.size() - 1)))
+                : null;
+
+        return new CursorResponse<>(content, slice.getSize(), slice.getNumberOfElements(), slice.hasNext(), nextCursor);
+    }
+
+    public static String encodeCursor(long key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(key).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
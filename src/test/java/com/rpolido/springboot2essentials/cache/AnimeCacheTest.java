@@ -0,0 +1,122 @@
+package com.rpolido.springboot2essentials.cache;
+
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidAnime;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for Anime Cache")
+class AnimeCacheTest {
+
+    private AnimeCache animeCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        animeCache = new AnimeCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("get loads anime only once when it is found")
+    void get_LoadsAnimeOnlyOnce_WhenAnimeIsFound() {
+
+        animeCache.get(1L, this::loadValidAnime);
+        final var anime = animeCache.get(1L, this::loadValidAnime);
+
+        assertThat(anime).contains(createValidAnime());
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get remembers not found result when anime does not exist")
+    void get_RemembersNotFound_WhenAnimeDoesNotExist() {
+
+        animeCache.get(1L, this::loadNothing);
+        final var anime = animeCache.get(1L, this::loadNothing);
+
+        assertThat(anime).isEmpty();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("getAll loads only the misses, once, and remembers the ids not found")
+    void getAll_LoadsMissesOnce_WhenSomeAnimesAreCached() {
+
+        final var loadedIds = new ArrayList<List<Long>>();
+        final Function<List<Long>, List<Anime>> loader = ids -> {
+            loadedIds.add(ids);
+            return ids.contains(1L) ? List.of(createValidAnime()) : List.of();
+        };
+
+        animeCache.get(3L, this::loadNothing);
+        final var animes = animeCache.getAll(List.of(1L, 2L, 3L), loader);
+        animeCache.getAll(List.of(1L, 2L), loader);
+
+        assertThat(animes).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(animes.get(1L)).contains(createValidAnime());
+        assertThat(animes.get(2L)).isEmpty();
+        assertThat(loadedIds).hasSize(1);
+        assertThat(loadedIds.get(0)).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("get returns a copy so callers cannot change the cached anime")
+    void get_ReturnsCopy_WhenAnimeIsChangedByCaller() {
+
+        animeCache.get(1L, this::loadValidAnime).orElseThrow().setName("changed");
+
+        assertThat(animeCache.get(1L, this::loadValidAnime)).contains(createValidAnime());
+    }
+
+    @Test
+    @DisplayName("onAnimeChanged evicts the changed anime when it is deleted")
+    void onAnimeChanged_EvictsAnime_WhenAnimeIsDeleted() {
+
+        animeCache.get(1L, this::loadValidAnime);
+        animeCache.onAnimeChanged(AnimeChangedEvent.deleted(List.of(1L)));
+        animeCache.get(1L, this::loadValidAnime);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("get does not cache a load that overlapped an eviction")
+    void get_DoesNotCacheLoad_WhenEvictedWhileLoading() {
+
+        animeCache.get(1L, id -> {
+            animeCache.evict(List.of(id));
+            return loadValidAnime(id);
+        });
+        animeCache.get(1L, this::loadValidAnime);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private Optional<Anime> loadValidAnime(Long id) {
+        loads.incrementAndGet();
+        return Optional.of(createValidAnime());
+    }
+
+    private Optional<Anime> loadNothing(Long id) {
+        loads.incrementAndGet();
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,86 @@
+package com.rpolido.springboot2essentials.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidAnime;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for Anime Response Cache")
+class AnimeResponseCacheTest {
+
+    private AnimeResponseCache responseCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        responseCache = new AnimeResponseCache(new ObjectMapper(), DataSize.ofMegabytes(1), Duration.ofMinutes(10), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("get serializes once and counts the bytes served from the cache")
+    void get_SerializesOnce_WhenCalledAgain() {
+
+        final var first = responseCache.get(AnimeResponseCache.ALL, this::loadAnimes, animes -> "\"tag\"");
+        final var second = responseCache.get(AnimeResponseCache.ALL, this::loadAnimes, animes -> "\"tag\"");
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("anime.responses.bytes.saved").tag("by", "serialization").counter().count())
+                .isEqualTo(first.getJson().length);
+    }
+
+    @Test
+    @DisplayName("get loads again after an anime changed")
+    void get_LoadsAgain_WhenAnimeChanged() {
+
+        responseCache.get(AnimeResponseCache.ALL, this::loadAnimes, animes -> "\"tag\"");
+        responseCache.onAnimeChanged(AnimeChangedEvent.deleted(List.of(1L)));
+        responseCache.get(AnimeResponseCache.ALL, this::loadAnimes, animes -> "\"tag\"");
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("get does not cache a response loaded while an anime changed")
+    void get_DoesNotCache_WhenAnimeChangedDuringLoad() {
+
+        responseCache.get(AnimeResponseCache.ALL, () -> {
+            responseCache.invalidateAll();
+            return loadAnimes();
+        }, animes -> "\"tag\"");
+        responseCache.get(AnimeResponseCache.ALL, this::loadAnimes, animes -> "\"tag\"");
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("acceptsGzip honors q=0 and the wildcard")
+    void acceptsGzip_HonorsQualityAndWildcard() {
+
+        assertThat(AnimeResponseCache.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(AnimeResponseCache.acceptsGzip("br;q=1.0, *;q=0.5")).isTrue();
+        assertThat(AnimeResponseCache.acceptsGzip("gzip;q=0, *")).isFalse();
+        assertThat(AnimeResponseCache.acceptsGzip("identity")).isFalse();
+        assertThat(AnimeResponseCache.acceptsGzip(null)).isFalse();
+    }
+
+    private List<?> loadAnimes() {
+        loads.incrementAndGet();
+        return List.of(createValidAnime());
+    }
+}
@@ -1,8 +1,15 @@
 package com.rpolido.springboot2essentials.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rpolido.springboot2essentials.cache.AnimeResponseCache;
+import com.rpolido.springboot2essentials.controller.dto.AnimeIngestionStatusDTO;
 import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
 import com.rpolido.springboot2essentials.controller.dto.AnimeUpdateDTO;
+import com.rpolido.springboot2essentials.exception.BadRequestException;
+import com.rpolido.springboot2essentials.exception.PreconditionFailedException;
+import com.rpolido.springboot2essentials.ingestion.AnimeIngestionQueue;
 import com.rpolido.springboot2essentials.service.AnimeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,38 +17,71 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidAnime;
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidAnimeSummary;
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidUpdatedAnime;
 import static com.rpolido.springboot2essentials.util.AnimeInsertDTOCreator.createAnimeInsertDTO;
 import static com.rpolido.springboot2essentials.util.AnimeUpdateDTOCreator.createAnimeUpdateDTO;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.*;
+import static org.springframework.http.HttpStatus.ACCEPTED;
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 
 @ExtendWith(SpringExtension.class)
 class AnimeControllerTest {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     @InjectMocks
     private AnimeController controller;
 
     @Mock
     private AnimeService service;
 
+    @Spy
+    private AnimeResponseCache responseCache = new AnimeResponseCache(OBJECT_MAPPER, DataSize.ofMegabytes(1),
+            Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+    @Mock
+    private ObjectProvider<AnimeIngestionQueue> ingestionQueue;
+
+    @Mock
+    private AnimeIngestionQueue queue;
+
     @BeforeEach
     void setup() {
 
-        final var animePage = new PageImpl<>(List.of(createValidAnime()));
+        final var animePage = new PageImpl<>(List.of(createValidAnimeSummary()), PageRequest.of(0, 20), 1);
         BDDMockito.when(service.listAll(any())).
                 thenReturn(animePage);
 
+        final var animeSlice = new SliceImpl<>(List.of(createValidAnimeSummary()), PageRequest.of(0, 1), true);
+        BDDMockito.when(service.listAfter(anyLong(), anyInt())).
+                thenReturn(animeSlice);
+
         BDDMockito.when(service.listAllNonPaged()).
-                thenReturn(List.of(createValidAnime()));
+                thenReturn(List.of(createValidAnimeSummary()));
 
         BDDMockito.when(service.findByIdOrThrowBadRequestException(anyLong()))
             .thenReturn(createValidAnime());
@@ -52,38 +92,100 @@ class AnimeControllerTest {
         BDDMockito.when(service.save(any(AnimeInsertDTO.class)))
                 .thenReturn(createValidAnime());
 
-        BDDMockito.doNothing().when(service).replace(any(AnimeUpdateDTO.class));
+        BDDMockito.when(service.findVersion(anyLong()))
+                .thenReturn(Optional.of(0L));
+
+        BDDMockito.when(service.replace(any(AnimeUpdateDTO.class), any()))
+                .thenReturn(createValidUpdatedAnime());
 
         BDDMockito.doNothing().when(service).delete(anyLong());
 
+        BDDMockito.when(queue.accept(any(AnimeInsertDTO.class)))
+                .thenReturn(AnimeIngestionStatusDTO.builder().id("tracking-id").status(AnimeIngestionStatusDTO.Status.QUEUED).build());
+
     }
 
     @Test
     @DisplayName("List returns list of anime inside page object when successful")
-    void list_ReturnsListOfAnimesInsidePageObject_WhenSuccessful() {
+    void list_ReturnsListOfAnimesInsidePageObject_WhenSuccessful() throws IOException {
 
         final var expectedName = createValidAnime().getName();
-        final var animePage = controller.list(null).getBody();
+        final var animePage = OBJECT_MAPPER.readTree(controller.list(PageRequest.of(0, 20), null).getBody());
 
         assertThat(animePage).isNotNull();
-        assertThat(animePage.toList()).isNotEmpty()
+        assertThat(animePage.get("content")).isNotEmpty()
             .hasSize(1);
 
-        assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
+        assertThat(animePage.get("content").get(0).get("name").asText()).isEqualTo(expectedName);
+    }
+
+    @Test
+    @DisplayName("List serves the cached bytes without querying again until an anime changes")
+    void list_ServesCachedBytes_UntilAnimeChanges() {
+
+        final var first = controller.list(PageRequest.of(0, 20), null).getBody();
+        final var second = controller.list(PageRequest.of(0, 20), null).getBody();
+
+        assertThat(second).isSameAs(first);
+        BDDMockito.verify(service, BDDMockito.times(1)).listAll(any());
+
+        responseCache.invalidateAll();
+        controller.list(PageRequest.of(0, 20), null);
+
+        BDDMockito.verify(service, BDDMockito.times(2)).listAll(any());
+    }
+
+    @Test
+    @DisplayName("List By Cursor returns slice of anime with next cursor when successful")
+    void listByCursor_ReturnsSliceOfAnimesWithNextCursor_WhenSuccessful() {
+
+        final var expectedName = createValidAnime().getName();
+        final var animeSlice = controller.listByCursor(null, 1).getBody();
+
+        assertThat(animeSlice).isNotNull();
+        assertThat(animeSlice.getContent()).isNotEmpty()
+                .hasSize(1);
+
+        assertThat(animeSlice.getContent().get(0).name()).isEqualTo(expectedName);
+        assertThat(animeSlice.isHasNext()).isTrue();
+        assertThat(animeSlice.getNextCursor()).isNotBlank();
+    }
+
+    @Test
+    @DisplayName("List By Cursor throws BadRequestException when cursor is invalid")
+    void listByCursor_ThrowsBadRequestException_WhenCursorIsInvalid() {
+
+        assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> controller.listByCursor("not-a-cursor", 1));
+
     }
 
     @Test
     @DisplayName("List All returns list of anime when successful")
-    void list_ReturnsListOfAnimes_WhenSuccessful() {
+    void list_ReturnsListOfAnimes_WhenSuccessful() throws IOException {
 
         final var expectedName = createValidAnime().getName();
-        final var animes = controller.listAll().getBody();
+        final var animes = OBJECT_MAPPER.readTree(controller.listAll(null).getBody());
 
         assertThat(animes).isNotNull();
         assertThat(animes).isNotEmpty()
                 .hasSize(1);
 
-        assertThat(animes.get(0).getName()).isEqualTo(expectedName);
+        assertThat(animes.get(0).get("name").asText()).isEqualTo(expectedName);
+    }
+
+    @Test
+    @DisplayName("List All returns gzip compressed JSON when the client accepts gzip")
+    void listAll_ReturnsGzipJson_WhenClientAcceptsGzip() throws IOException {
+
+        final var entity = controller.listAll("deflate, gzip;q=0.8");
+
+        assertThat(entity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(entity.getHeaders().getETag()).endsWith("-gzip\"");
+
+        try (final var json = new GZIPInputStream(new ByteArrayInputStream(entity.getBody()))) {
+            assertThat(OBJECT_MAPPER.readTree(json).get(0).get("name").asText()).isEqualTo(createValidAnime().getName());
+        }
     }
 
     @Test
@@ -91,13 +193,26 @@ class AnimeControllerTest {
     void findById_ReturnAnime_WhenSuccessful() {
 
         final var expectedId = createValidAnime().getId();
-        final var anime = controller.findById(1L).getBody();
+        final var entity = controller.findById(1L, null);
+        final var anime = entity.getBody();
 
         assertThat(anime).isNotNull();
 
         assertThat(anime.getId())
                 .isNotNull()
                 .isEqualTo(expectedId);
+        assertThat(entity.getHeaders().getETag()).isEqualTo("\"1-0\"");
+    }
+
+    @Test
+    @DisplayName("findById returns 304 without loading the anime when If-None-Match matches the current version")
+    void findById_ReturnsNotModified_WhenIfNoneMatchMatches() {
+
+        final var entity = controller.findById(1L, "\"1-0\"");
+
+        assertThat(entity.getStatusCode()).isEqualTo(NOT_MODIFIED);
+        assertThat(entity.getBody()).isNull();
+        BDDMockito.verify(service, BDDMockito.never()).findByIdOrThrowBadRequestException(anyLong());
     }
 
     @Test
@@ -132,24 +247,85 @@ class AnimeControllerTest {
     @DisplayName("save returns anime when successful")
     void save_ReturnAnime_WhenSuccessful() {
 
-        final var anime = controller.save(createAnimeInsertDTO()).getBody();
+        final var anime = controller.save(createAnimeInsertDTO(), null).getBody();
 
         assertThat(anime).isNotNull().isEqualTo(createValidAnime());
 
     }
 
+    @Test
+    @DisplayName("save returns 202 with the tracking id when respond-async is preferred and the ingestion queue is enabled")
+    void save_ReturnsAccepted_WhenRespondAsyncIsPreferred() {
+
+        BDDMockito.when(ingestionQueue.getIfAvailable()).thenReturn(queue);
+
+        final var entity = controller.save(createAnimeInsertDTO(), "respond-async");
+
+        assertThat(entity.getStatusCode()).isEqualTo(ACCEPTED);
+        assertThat(entity.getHeaders().getLocation()).hasToString("/animes/ingestions/tracking-id");
+        assertThat(entity.getBody()).isInstanceOf(AnimeIngestionStatusDTO.class);
+        BDDMockito.verify(service, BDDMockito.never()).save(any(AnimeInsertDTO.class));
+    }
+
+    @Test
+    @DisplayName("save inserts right away when respond-async is preferred but the ingestion queue is disabled")
+    void save_ReturnsCreatedAnime_WhenIngestionQueueIsDisabled() {
+
+        final var entity = controller.save(createAnimeInsertDTO(), "respond-async");
+
+        assertThat(entity.getStatusCode()).isEqualTo(CREATED);
+        assertThat(entity.getBody()).isEqualTo(createValidAnime());
+    }
+
+    @Test
+    @DisplayName("prefersRespondAsync finds respond-async among other preferences, with parameters or in any case")
+    void prefersRespondAsync_ReturnsTrue_WhenRespondAsyncIsAmongPreferences() {
+
+        assertThat(AnimeController.prefersRespondAsync("respond-async")).isTrue();
+        assertThat(AnimeController.prefersRespondAsync("respond-async, wait=10")).isTrue();
+        assertThat(AnimeController.prefersRespondAsync("return=minimal, Respond-Async")).isTrue();
+        assertThat(AnimeController.prefersRespondAsync("respond-async; foo=bar")).isTrue();
+
+        assertThat(AnimeController.prefersRespondAsync(null)).isFalse();
+        assertThat(AnimeController.prefersRespondAsync("wait=10")).isFalse();
+        assertThat(AnimeController.prefersRespondAsync("respond-asynchronously")).isFalse();
+    }
+
     @Test
     @DisplayName("replace updates anime when successful")
     void replace_UpdatesAnime_WhenSuccessful() {
 
-        assertThatCode(() -> controller.replace(createAnimeUpdateDTO()))
+        assertThatCode(() -> controller.replace(createAnimeUpdateDTO(), null))
                 .doesNotThrowAnyException();
 
-        final var entity = controller.replace(createAnimeUpdateDTO());
+        final var entity = controller.replace(createAnimeUpdateDTO(), "\"1-0\"");
 
         assertThat(entity).isNotNull();
         assertThat(entity.getStatusCode()).isEqualTo(NO_CONTENT);
+        assertThat(entity.getHeaders().getETag()).isEqualTo("\"1-1\"");
+        BDDMockito.verify(service).replace(createAnimeUpdateDTO(), 0L);
+
+    }
+
+    @Test
+    @DisplayName("replace throws PreconditionFailedException when If-Match is the ETag of another anime")
+    void replace_ThrowsPreconditionFailedException_WhenIfMatchIsForAnotherAnime() {
+
+        assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> controller.replace(createAnimeUpdateDTO(), "\"2-0\""));
+
+    }
+
+    @Test
+    @DisplayName("replace throws BadRequestException when If-Match is sent without the anime id")
+    void replace_ThrowsBadRequestException_WhenIdIsMissing() {
+
+        final var anime = AnimeUpdateDTO.builder().name("Overlord").build();
+
+        assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> controller.replace(anime, "\"1-0\""));
 
+        BDDMockito.verify(service, BDDMockito.never()).replace(any(AnimeUpdateDTO.class), any());
     }
 
     @Test
@@ -0,0 +1,95 @@
+package com.rpolido.springboot2essentials.datasource;
+
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica, each one knowing its name,
+ * and the test fakes the replication of the heartbeat row.
+ */
+@DisplayName("Tests for Replica Routing DataSource")
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = database("primary");
+
+    private final DataSource replica = database("replica");
+
+    private ReplicaLagMonitor lagMonitor;
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        lagMonitor = new ReplicaLagMonitor(primary, replica, Duration.ofSeconds(5), Duration.ofSeconds(1), meterRegistry);
+        dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, lagMonitor, meterRegistry));
+    }
+
+    @Test
+    @DisplayName("read-only transactions run on the replica when it is within the max lag")
+    void getConnection_ReturnsReplica_WhenReadOnlyAndReplicaIsCurrent() {
+
+        replicateHeartbeat(Instant.now());
+        lagMonitor.check();
+
+        assertThat(databaseName(true)).isEqualTo("replica");
+        assertThat(databaseName(false)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("read-only transactions run on the primary when the replica is further behind than the max lag")
+    void getConnection_ReturnsPrimary_WhenReplicaLagsTooMuch() {
+
+        replicateHeartbeat(Instant.now().minus(Duration.ofMinutes(1)));
+        lagMonitor.check();
+
+        assertThat(databaseName(true)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("read-only transactions run on the primary right after an anime changed")
+    void getConnection_ReturnsPrimary_WhenAnimeJustChanged() {
+
+        replicateHeartbeat(Instant.now());
+        lagMonitor.check();
+        lagMonitor.onAnimeChanged(AnimeChangedEvent.deleted(List.of(1L)));
+
+        assertThat(databaseName(true)).isEqualTo("primary");
+    }
+
+    private String databaseName(boolean readOnly) {
+        final var transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> new JdbcTemplate(dataSource).queryForObject("select name from database_name", String.class));
+    }
+
+    private void replicateHeartbeat(Instant beatAt) {
+        new JdbcTemplate(replica).update("insert into replica_heartbeat (id, beat_at) values (1, ?)", Timestamp.from(beatAt));
+    }
+
+    private static DataSource database(String name) {
+        final var dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        final var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table replica_heartbeat (id int primary key, beat_at timestamp not null)");
+        jdbcTemplate.execute("create table database_name (name varchar(16) not null)");
+        jdbcTemplate.update("insert into database_name (name) values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,63 @@
+package com.rpolido.springboot2essentials.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rpolido.springboot2essentials.exception.AnimeNotFoundException;
+import com.rpolido.springboot2essentials.exception.BadRequestExceptionDetails;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for Rest Exception Handler")
+class RestExceptionHandlerTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private final RestExceptionHandler handler = new RestExceptionHandler();
+
+    @Test
+    @DisplayName("ErrorBodyTemplate renders the same JSON Jackson writes for the details")
+    void render_WritesSameJsonAsJackson_WhenSuccessful() throws IOException {
+
+        final var timestamp = LocalDateTime.of(2026, 10, 18, 12, 0, 0, 123_000_000);
+        final var details = BadRequestExceptionDetails.builder()
+                .title("Bad Request Exception, Check the documentation")
+                .status(HttpStatus.BAD_REQUEST.value())
+                .details("Anime \"1\" not Found")
+                .developerMessage(AnimeNotFoundException.class.getName());
+
+        final var rendered = ErrorBodyTemplate.of(details.build()).render(timestamp);
+
+        assertThat(new String(rendered)).isEqualTo(OBJECT_MAPPER.writeValueAsString(details.timestamp(timestamp).build()));
+    }
+
+    @Test
+    @DisplayName("handlerAnimeNotFoundException returns a 400 with the bad request details when successful")
+    void handlerAnimeNotFoundException_ReturnsBadRequestDetails_WhenSuccessful() throws IOException {
+
+        final var entity = handler.handlerAnimeNotFoundException();
+        final var body = OBJECT_MAPPER.readTree(entity.getBody());
+
+        assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(entity.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(body.get("status").asInt()).isEqualTo(400);
+        assertThat(body.get("details").asText()).isEqualTo(AnimeNotFoundException.MESSAGE);
+        assertThat(LocalDateTime.parse(body.get("timestamp").asText())).isBeforeOrEqualTo(LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("AnimeNotFoundException has no stack trace and keeps no suppressed exceptions")
+    void animeNotFoundException_IsStackless_WhenThrown() {
+
+        AnimeNotFoundException.INSTANCE.addSuppressed(new IllegalStateException());
+
+        assertThat(AnimeNotFoundException.INSTANCE.getStackTrace()).isEmpty();
+        assertThat(AnimeNotFoundException.INSTANCE.getSuppressed()).isEmpty();
+    }
+}
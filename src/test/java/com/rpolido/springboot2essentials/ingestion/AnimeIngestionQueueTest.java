@@ -0,0 +1,238 @@
+package com.rpolido.springboot2essentials.ingestion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rpolido.springboot2essentials.controller.dto.AnimeBulkItemResultDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeIngestionStatusDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import com.rpolido.springboot2essentials.exception.TooManyRequestsException;
+import com.rpolido.springboot2essentials.service.AnimeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.rpolido.springboot2essentials.util.AnimeInsertDTOCreator.createAnimeInsertDTO;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(SpringExtension.class)
+@DisplayName("Tests for Anime Ingestion Queue")
+class AnimeIngestionQueueTest {
+
+    @Mock
+    private AnimeService animeService;
+
+    @TempDir
+    Path directory;
+
+    private final List<List<String>> storedBatches = new CopyOnWriteArrayList<>();
+
+    private final List<AnimeIngestionQueue> queues = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        final var ids = new AtomicLong();
+        BDDMockito.when(animeService.saveAll(any())).thenAnswer(invocation -> {
+            final Iterator<AnimeInsertDTO> animes = invocation.getArgument(0);
+            final var names = new ArrayList<String>();
+            final var results = new ArrayList<AnimeBulkItemResultDTO>();
+            while (animes.hasNext()) {
+                names.add(animes.next().getName());
+                results.add(AnimeBulkItemResultDTO.builder()
+                        .index(results.size())
+                        .status(AnimeBulkItemResultDTO.Status.CREATED)
+                        .id(ids.incrementAndGet())
+                        .build());
+            }
+            storedBatches.add(names);
+            return results;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException, IOException {
+        for (final var queue : queues) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("accept queues the anime and the writer stores it")
+    void accept_StoresAnime_WhenWriterRuns() throws InterruptedException {
+
+        final var queue = queue(10, 100);
+        final var queued = queue.accept(createAnimeInsertDTO());
+        queue.start();
+
+        assertThat(queued.getStatus()).isEqualTo(AnimeIngestionStatusDTO.Status.QUEUED);
+        final var stored = awaitStored(queue, queued.getId());
+        assertThat(stored.getAnimeId()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("accept stores in order the animes waiting in the journal when memory is full")
+    void accept_StoresInOrder_WhenAnimesSpillToJournal() throws InterruptedException {
+
+        final var queue = queue(1, 100);
+        final var statuses = List.of(queue.accept(named("first")), queue.accept(named("second")), queue.accept(named("third")));
+        queue.start();
+
+        for (final var status : statuses) {
+            awaitStored(queue, status.getId());
+        }
+        assertThat(storedBatches).flatExtracting(names -> names).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    @DisplayName("accept throws TooManyRequestsException when max-pending animes are waiting")
+    void accept_ThrowsTooManyRequestsException_WhenQueueIsFull() {
+
+        final var queue = queue(1, 2);
+        queue.accept(createAnimeInsertDTO());
+        queue.accept(createAnimeInsertDTO());
+
+        assertThatExceptionOfType(TooManyRequestsException.class)
+                .isThrownBy(() -> queue.accept(createAnimeInsertDTO()));
+    }
+
+    @Test
+    @DisplayName("a new queue stores the animes accepted but not stored before a restart")
+    void start_StoresJournaledAnimes_WhenRestarted() throws InterruptedException, IOException {
+
+        final var stopped = queue(10, 100);
+        final var queued = stopped.accept(named("journaled"));
+        stopped.stop();
+        queues.remove(stopped);
+
+        final var restarted = queue(10, 100);
+        restarted.start();
+
+        awaitStored(restarted, queued.getId());
+        assertThat(storedBatches).flatExtracting(names -> names).containsExactly("journaled");
+    }
+
+    @Test
+    @DisplayName("write tries again only the animes that failed, storing the others once")
+    void write_RetriesOnlyFailedAnimes_WhenPartOfBatchFails() throws InterruptedException {
+
+        final var failures = new AtomicLong(1);
+        BDDMockito.when(animeService.saveAll(any())).thenAnswer(invocation -> {
+            final Iterator<AnimeInsertDTO> animes = invocation.getArgument(0);
+            final var names = new ArrayList<String>();
+            final var results = new ArrayList<AnimeBulkItemResultDTO>();
+            while (animes.hasNext()) {
+                final var name = animes.next().getName();
+                names.add(name);
+                final var failed = name.equals("second") && failures.getAndDecrement() > 0;
+                results.add(AnimeBulkItemResultDTO.builder()
+                        .index(results.size())
+                        .status(failed ? AnimeBulkItemResultDTO.Status.FAILED : AnimeBulkItemResultDTO.Status.CREATED)
+                        .id(failed ? null : (long) names.size())
+                        .build());
+            }
+            storedBatches.add(names);
+            return results;
+        });
+
+        final var queue = queue(10, 100);
+        final var first = queue.accept(named("first"));
+        final var second = queue.accept(named("second"));
+        queue.start();
+
+        awaitStored(queue, first.getId());
+        awaitStored(queue, second.getId());
+        assertThat(storedBatches).containsExactly(List.of("first", "second"), List.of("second"));
+    }
+
+    @Test
+    @DisplayName("write drops the stored animes from the journal while others are still waiting")
+    void write_CompactsJournal_WhenStoredAnimesOutnumberWaitingOnes() throws InterruptedException, IOException {
+
+        final var release = new CountDownLatch(1);
+        BDDMockito.when(animeService.saveAll(any())).thenAnswer(invocation -> {
+            final Iterator<AnimeInsertDTO> animes = invocation.getArgument(0);
+            final var name = animes.next().getName();
+            if (name.equals("third")) {
+                release.await();
+            }
+            storedBatches.add(List.of(name));
+            return List.of(AnimeBulkItemResultDTO.builder()
+                    .index(0)
+                    .status(AnimeBulkItemResultDTO.Status.CREATED)
+                    .id((long) storedBatches.size())
+                    .build());
+        });
+
+        final var queue = queue(1, 100);
+        final var statuses = List.of(queue.accept(named("first")), queue.accept(named("second")), queue.accept(named("third")));
+        queue.start();
+
+        awaitStored(queue, statuses.get(1).getId());
+        final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (Files.readAllLines(directory.resolve("animes.journal")).size() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(Files.readAllLines(directory.resolve("animes.journal")))
+                .singleElement()
+                .asString()
+                .contains(statuses.get(2).getId());
+
+        release.countDown();
+        awaitStored(queue, statuses.get(2).getId());
+    }
+
+    @Test
+    @DisplayName("the queue cannot be created with batches larger than a bulk insert chunk")
+    void constructor_ThrowsIllegalArgumentException_WhenBatchSizeExceedsChunkSize() {
+
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> new AnimeIngestionQueue(animeService, new ObjectMapper(), directory.resolve("animes.journal"),
+                        false, 10, 100, 501, 3, Duration.ofMillis(10), Duration.ofMinutes(1), 500, new SimpleMeterRegistry()));
+    }
+
+    private AnimeIngestionQueue queue(int memoryCapacity, long maxPending) {
+        try {
+            final var queue = new AnimeIngestionQueue(animeService, new ObjectMapper(), directory.resolve("animes.journal"),
+                    false, memoryCapacity, maxPending, 2, 3, Duration.ofMillis(10), Duration.ofMinutes(1), 500, new SimpleMeterRegistry());
+            queues.add(queue);
+            return queue;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static AnimeInsertDTO named(String name) {
+        return AnimeInsertDTO.builder().name(name).build();
+    }
+
+    private static AnimeIngestionStatusDTO awaitStored(AnimeIngestionQueue queue, String id) throws InterruptedException {
+        final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            final var status = queue.status(id).orElseThrow();
+            if (status.getStatus() != AnimeIngestionStatusDTO.Status.QUEUED) {
+                assertThat(status.getStatus()).isEqualTo(AnimeIngestionStatusDTO.Status.CREATED);
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Anime " + id + " was not stored in time");
+    }
+}
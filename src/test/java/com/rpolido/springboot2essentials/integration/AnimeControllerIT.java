@@ -1,10 +1,20 @@
 package com.rpolido.springboot2essentials.integration;
 
+import com.rpolido.springboot2essentials.config.SecondLevelCacheConfig;
+import com.rpolido.springboot2essentials.controller.dto.AnimeBulkItemResultDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeBulkMutationResultDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeLookupItemDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeSearchHitDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeUpdateDTO;
 import com.rpolido.springboot2essentials.domain.Anime;
 import com.rpolido.springboot2essentials.domain.DevDojoUser;
 import com.rpolido.springboot2essentials.repository.AnimeRepository;
 import com.rpolido.springboot2essentials.repository.DevDojoUserRepository;
+import com.rpolido.springboot2essentials.wrapper.CursorResponse;
 import com.rpolido.springboot2essentials.wrapper.PageableResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,15 +29,20 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
+import java.util.Map;
 
 import static com.rpolido.springboot2essentials.util.AnimeCreator.createAnimeToBeSaved;
 import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidAnime;
 import static com.rpolido.springboot2essentials.util.AnimeInsertDTOCreator.createAnimeInsertDTO;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.springframework.http.HttpStatus.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -49,6 +64,12 @@ public class AnimeControllerIT {
     @Autowired
     private DevDojoUserRepository devDojoUserRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private static final DevDojoUser USER =  DevDojoUser.builder()
             .name("devdojo")
             .username("devdojo")
@@ -108,6 +129,51 @@ public class AnimeControllerIT {
         assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("findAllById returns the animes in request order with not found markers when successful")
+    void findAllById_ReturnsAnimesInRequestOrder_WhenSuccessful() {
+
+        devDojoUserRepository.save(USER);
+
+        final var first = repository.save(createAnimeToBeSaved());
+        final var second = repository.save(createAnimeToBeSaved());
+        final var missingId = second.getId() + 1;
+
+        final var items = testRestTemplateRoleUser.exchange("/animes?ids={ids}", HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<AnimeLookupItemDTO>>() {},
+                second.getId() + "," + missingId + "," + first.getId()).getBody();
+
+        assertThat(items).isNotNull();
+        assertThat(items).extracting(AnimeLookupItemDTO::getId).containsExactly(second.getId(), missingId, first.getId());
+        assertThat(items).extracting(AnimeLookupItemDTO::getAnime).containsExactly(second, null, first);
+        assertThat(items.get(1).getStatus()).isEqualTo(AnimeLookupItemDTO.Status.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("List By Cursor walks every anime slice by slice when successful")
+    void listByCursor_WalksEveryAnimeSliceBySlice_WhenSuccessful() {
+
+        devDojoUserRepository.save(USER);
+
+        final var first = repository.save(createAnimeToBeSaved());
+        final var second = repository.save(createAnimeToBeSaved());
+
+        final var firstSlice = testRestTemplateRoleUser.exchange("/animes/cursor?size=1", HttpMethod.GET, null,
+                new ParameterizedTypeReference<CursorResponse<Anime>>() {}).getBody();
+
+        assertThat(firstSlice).isNotNull();
+        assertThat(firstSlice.getContent()).containsExactly(first);
+        assertThat(firstSlice.isHasNext()).isTrue();
+
+        final var secondSlice = testRestTemplateRoleUser.exchange("/animes/cursor?size=1&after={after}", HttpMethod.GET, null,
+                new ParameterizedTypeReference<CursorResponse<Anime>>() {}, firstSlice.getNextCursor()).getBody();
+
+        assertThat(secondSlice).isNotNull();
+        assertThat(secondSlice.getContent()).containsExactly(second);
+        assertThat(secondSlice.isHasNext()).isFalse();
+        assertThat(secondSlice.getNextCursor()).isNull();
+    }
+
     @Test
     @DisplayName("List All returns list of anime when successful")
     void list_ReturnsListOfAnimes_WhenSuccessful() {
@@ -129,6 +195,49 @@ public class AnimeControllerIT {
         assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("List All serves the cached response until an anime is saved")
+    void listAll_ServesCachedResponseUntilAnimeIsSaved_WhenSuccessful() {
+
+        devDojoUserRepository.save(USER);
+
+        repository.save(createAnimeToBeSaved());
+
+        final var first = testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<Anime>>() {});
+
+        assertThat(first.getHeaders().getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(first.getBody()).hasSize(1);
+
+        testRestTemplateRoleUser.postForObject("/animes", createAnimeInsertDTO(), Anime.class);
+
+        final var second = testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<Anime>>() {});
+
+        assertThat(second.getBody()).hasSize(2);
+        assertThat(second.getHeaders().getETag()).isNotEqualTo(first.getHeaders().getETag());
+        assertThat(meterRegistry.find("anime.responses.bytes.saved").counters()).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("Stream returns one anime per line when successful")
+    void stream_ReturnsOneAnimePerLine_WhenSuccessful() {
+
+        devDojoUserRepository.save(USER);
+
+        repository.save(createAnimeToBeSaved());
+        repository.save(createAnimeToBeSaved());
+
+        final var responseEntity = testRestTemplateRoleUser.getForEntity("/animes/stream", String.class);
+
+        assertThat(responseEntity.getStatusCode()).isEqualTo(OK);
+        assertThat(responseEntity.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(responseEntity.getBody()).isNotNull();
+        assertThat(responseEntity.getBody().lines())
+                .hasSize(2)
+                .allMatch(line -> line.contains(createValidAnime().getName()));
+    }
+
     @Test
     @DisplayName("findById returns anime when successful")
     void findById_ReturnAnime_WhenSuccessful() {
@@ -145,6 +254,117 @@ public class AnimeControllerIT {
                 .isEqualTo(expectedId);
     }
 
+    @Test
+    @DisplayName("findById records service, repository and serialization timers when successful")
+    void findById_RecordsLayerTimers_WhenSuccessful() {
+
+        devDojoUserRepository.save(USER);
+
+        final var savedAnime = repository.save(createAnimeToBeSaved());
+
+        testRestTemplateRoleUser.getForObject("/animes/{id}", Anime.class, savedAnime.getId());
+
+        assertThat(meterRegistry.find("anime.service").tag("method", "findByIdOrThrowBadRequestException").timer())
+                .isNotNull()
+                .satisfies(timer -> assertThat(timer.count()).isEqualTo(1));
+        assertThat(meterRegistry.find("spring.data.repository.invocations")
+                .tags("repository", "AnimeRepository", "method", "findById").timer())
+                .isNotNull();
+        assertThat(meterRegistry.find("anime.serialization").tag("type", "Anime").timer())
+                .isNotNull();
+    }
+
+    @Test
+    @DisplayName("sqlstats returns the statements executed by the API when user is admin")
+    void sqlStats_ReturnsExecutedStatements_WhenUserIsAdmin() {
+
+        devDojoUserRepository.save(ADMIN);
+
+        final var savedAnime = repository.save(createAnimeToBeSaved());
+
+        testRestTemplateRoleAdmin.getForObject("/animes/{id}", Anime.class, savedAnime.getId());
+
+        final var report = testRestTemplateRoleAdmin.exchange("/actuator/sqlstats", HttpMethod.GET, null,
+                new ParameterizedTypeReference<Map<String, Map<String, Object>>>() {});
+
+        assertThat(report.getStatusCode()).isEqualTo(OK);
+        assertThat(report.getBody()).containsKeys("jdbc", "hibernate");
+        assertThat(report.getBody().get("jdbc").get("topStatements").toString()).contains("from anime");
+        assertThat(report.getBody().get("hibernate")).containsEntry("enabled", true);
+        assertThat(meterRegistry.find("jdbc.statements").tag("type", "select").timer())
+                .isNotNull()
+                .satisfies(timer -> assertThat(timer.count()).isPositive());
+    }
+
+    @Test
+    @DisplayName("sqlstats returns 403 when user is not admin")
+    void sqlStats_Returns403_WhenUserIsNotAdmin() {
+
+        devDojoUserRepository.save(USER);
+
+        final var report = testRestTemplateRoleUser.getForEntity("/actuator/sqlstats", String.class);
+
+        assertThat(report.getStatusCode()).isEqualTo(FORBIDDEN);
+    }
+
+    @Test
+    @DisplayName("findById returns 304 when If-None-Match has the current ETag and 200 once the anime changed")
+    void findById_ReturnsNotModifiedUntilAnimeChanges_WhenIfNoneMatchIsSent() {
+
+        devDojoUserRepository.save(USER);
+
+        final var savedAnime = repository.save(createAnimeToBeSaved());
+
+        final var first = testRestTemplateRoleUser.getForEntity("/animes/{id}", Anime.class, savedAnime.getId());
+        final var eTag = first.getHeaders().getETag();
+
+        assertThat(eTag).isEqualTo("\"" + savedAnime.getId() + "-0\"");
+
+        final var headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+
+        final var unchanged = testRestTemplateRoleUser.exchange("/animes/{id}", HttpMethod.GET, new HttpEntity<>(headers),
+                Anime.class, savedAnime.getId());
+
+        assertThat(unchanged.getStatusCode()).isEqualTo(NOT_MODIFIED);
+        assertThat(unchanged.getBody()).isNull();
+
+        testRestTemplateRoleUser.put("/animes", AnimeUpdateDTO.builder().id(savedAnime.getId()).name("Overlord").build());
+
+        final var changed = testRestTemplateRoleUser.exchange("/animes/{id}", HttpMethod.GET, new HttpEntity<>(headers),
+                Anime.class, savedAnime.getId());
+
+        assertThat(changed.getStatusCode()).isEqualTo(OK);
+        assertThat(changed.getHeaders().getETag()).isEqualTo("\"" + savedAnime.getId() + "-1\"");
+        assertThat(changed.getBody()).isNotNull();
+        assertThat(changed.getBody().getName()).isEqualTo("Overlord");
+    }
+
+    @Test
+    @DisplayName("replace returns 412 when If-Match has an outdated ETag")
+    void replace_Returns412_WhenIfMatchIsOutdated() {
+
+        devDojoUserRepository.save(USER);
+
+        final var savedAnime = repository.save(createAnimeToBeSaved());
+        final var staleETag = "\"" + savedAnime.getId() + "-0\"";
+
+        final var headers = new HttpHeaders();
+        headers.setIfMatch(staleETag);
+
+        final var replaced = testRestTemplateRoleUser.exchange("/animes", HttpMethod.PUT,
+                new HttpEntity<>(AnimeUpdateDTO.builder().id(savedAnime.getId()).name("Overlord").build(), headers), Void.class);
+
+        assertThat(replaced.getStatusCode()).isEqualTo(NO_CONTENT);
+        assertThat(replaced.getHeaders().getETag()).isEqualTo("\"" + savedAnime.getId() + "-1\"");
+
+        final var stale = testRestTemplateRoleUser.exchange("/animes", HttpMethod.PUT,
+                new HttpEntity<>(AnimeUpdateDTO.builder().id(savedAnime.getId()).name("Berserk").build(), headers), String.class);
+
+        assertThat(stale.getStatusCode()).isEqualTo(PRECONDITION_FAILED);
+        assertThat(repository.findById(savedAnime.getId())).get().extracting(Anime::getName).isEqualTo("Overlord");
+    }
+
     @Test
     @DisplayName("findByName returns list of anime when successful")
     void findByName_ReturnListOfAnime_WhenSuccessful() {
@@ -166,6 +386,26 @@ public class AnimeControllerIT {
         assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("findByName is answered from the query cache when called again")
+    void findByName_UsesQueryCache_WhenCalledAgain() {
+
+        devDojoUserRepository.save(USER);
+
+        final var savedAnime = repository.save(createAnimeToBeSaved());
+        final var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (var i = 0; i < 2; i++) {
+            final var animes = testRestTemplateRoleUser.exchange("/animes/find?name={name}", HttpMethod.GET, null,
+                    new ParameterizedTypeReference<List<Anime>>() {}, savedAnime.getName()).getBody();
+
+            assertThat(animes).extracting(Anime::getId).containsExactly(savedAnime.getId());
+        }
+
+        assertThat(statistics.getQueryRegionStatistics(SecondLevelCacheConfig.ANIME_BY_NAME_REGION).getHitCount())
+                .isPositive();
+    }
+
     @Test
     @DisplayName("findByName returns an empty list of anime when anime is not found")
     void findByName_ReturnEmtpyListOfAnime_WhenAnimeIsNotFound() {
@@ -180,6 +420,30 @@ public class AnimeControllerIT {
 
     }
 
+    @Test
+    @DisplayName("autocomplete and search return saved animes from the search index when successful")
+    void autocompleteAndSearch_ReturnSavedAnimes_WhenSuccessful() {
+
+        devDojoUserRepository.save(USER);
+
+        final var savedAnime = testRestTemplateRoleUser.postForObject("/animes", createAnimeInsertDTO(), Anime.class);
+
+        final var suggestions = testRestTemplateRoleUser.exchange("/animes/autocomplete?prefix=ipp", HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<AnimeSearchHitDTO>>() {}).getBody();
+
+        assertThat(suggestions).isNotNull()
+                .extracting(AnimeSearchHitDTO::getId)
+                .containsExactly(savedAnime.getId());
+
+        final var hits = testRestTemplateRoleUser.exchange("/animes/search?q=hajime no ipo", HttpMethod.GET, null,
+                new ParameterizedTypeReference<PageableResponse<AnimeSearchHitDTO>>() {}).getBody();
+
+        assertThat(hits).isNotNull();
+        assertThat(hits.toList())
+                .extracting(AnimeSearchHitDTO::getId)
+                .containsExactly(savedAnime.getId());
+    }
+
     @Test
     @DisplayName("save returns anime when successful")
     void save_ReturnAnime_WhenSuccessful() {
@@ -196,6 +460,46 @@ public class AnimeControllerIT {
 
     }
 
+    @Test
+    @DisplayName("saveAll returns one result per item and stores the valid animes when successful")
+    void saveAll_ReturnsResultPerItemAndStoresValidAnimes_WhenSuccessful() {
+
+        devDojoUserRepository.save(USER);
+
+        final var animes = List.of(createAnimeInsertDTO(), new AnimeInsertDTO(""), createAnimeInsertDTO());
+
+        final var results = testRestTemplateRoleUser.exchange("/animes/bulk", HttpMethod.POST, new HttpEntity<>(animes),
+                new ParameterizedTypeReference<List<AnimeBulkItemResultDTO>>() {}).getBody();
+
+        assertThat(results).isNotNull()
+                .extracting(AnimeBulkItemResultDTO::getStatus)
+                .containsExactly(AnimeBulkItemResultDTO.Status.CREATED, AnimeBulkItemResultDTO.Status.INVALID,
+                        AnimeBulkItemResultDTO.Status.CREATED);
+
+        assertThat(results.get(1).getMessage()).isEqualTo("The anime name cannot be empty");
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("saveAll reads animes line by line when the body is NDJSON")
+    void saveAll_ReadsAnimesLineByLine_WhenBodyIsNdjson() {
+
+        devDojoUserRepository.save(USER);
+
+        final var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        final var body = "{\"name\":\"Hajime no Ippo\"}\n{\"name\":\"Overlord\"}\n";
+
+        final var results = testRestTemplateRoleUser.exchange("/animes/bulk", HttpMethod.POST, new HttpEntity<>(body, headers),
+                new ParameterizedTypeReference<List<AnimeBulkItemResultDTO>>() {}).getBody();
+
+        assertThat(results).isNotNull()
+                .hasSize(2)
+                .allMatch(result -> result.getStatus() == AnimeBulkItemResultDTO.Status.CREATED);
+
+        assertThat(repository.findByName("Overlord")).hasSize(1);
+    }
+
     @Test
     @DisplayName("replace updates anime when successful")
     void replace_UpdatesAnime_WhenSuccessful() {
@@ -214,6 +518,54 @@ public class AnimeControllerIT {
 
     }
 
+    @Test
+    @DisplayName("replaceAll renames existing animes and reports missing ids and invalid animes when successful")
+    void replaceAll_RenamesExistingAnimesAndReportsNotFound_WhenSuccessful() {
+
+        devDojoUserRepository.save(USER);
+
+        final var savedAnime = repository.save(createAnimeToBeSaved());
+        final var missingId = savedAnime.getId() + 1;
+
+        final var animes = List.of(
+                AnimeUpdateDTO.builder().id(savedAnime.getId()).name("Overlord").build(),
+                AnimeUpdateDTO.builder().id(missingId).name("Overlord").build(),
+                AnimeUpdateDTO.builder().id(savedAnime.getId()).name("").build());
+
+        final var result = testRestTemplateRoleUser.exchange("/animes/bulk", HttpMethod.PUT, new HttpEntity<>(animes),
+                AnimeBulkMutationResultDTO.class).getBody();
+
+        assertThat(result).isNotNull();
+        assertThat(result.getAffected()).isEqualTo(1);
+        assertThat(result.getNotFound()).containsExactly(missingId);
+        assertThat(result.getInvalid())
+                .extracting(AnimeBulkItemResultDTO::getIndex, AnimeBulkItemResultDTO::getStatus)
+                .containsExactly(tuple(2, AnimeBulkItemResultDTO.Status.INVALID));
+
+        final var anime = testRestTemplateRoleUser.getForObject("/animes/{id}", Anime.class, savedAnime.getId());
+
+        assertThat(anime.getName()).isEqualTo("Overlord");
+    }
+
+    @Test
+    @DisplayName("deleteAll removes existing animes and reports missing ids when successful")
+    void deleteAll_RemovesExistingAnimesAndReportsNotFound_WhenSuccessful() {
+
+        devDojoUserRepository.save(ADMIN);
+
+        final var first = repository.save(createAnimeToBeSaved());
+        final var second = repository.save(createAnimeToBeSaved());
+        final var missingId = second.getId() + 1;
+
+        final var result = testRestTemplateRoleAdmin.exchange("/animes/admin/bulk?ids={first},{second},{missing}",
+                HttpMethod.DELETE, null, AnimeBulkMutationResultDTO.class, first.getId(), second.getId(), missingId).getBody();
+
+        assertThat(result).isNotNull();
+        assertThat(result.getAffected()).isEqualTo(2);
+        assertThat(result.getNotFound()).containsExactly(missingId);
+        assertThat(repository.count()).isZero();
+    }
+
     @Test
     @DisplayName("delete removes anime when successful")
     void delete_RemoveAnime_WhenSuccessful() {
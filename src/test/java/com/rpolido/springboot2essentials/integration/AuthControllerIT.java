@@ -0,0 +1,114 @@
+package com.rpolido.springboot2essentials.integration;
+
+import com.rpolido.springboot2essentials.controller.dto.TokenRequestDTO;
+import com.rpolido.springboot2essentials.controller.dto.TokenResponseDTO;
+import com.rpolido.springboot2essentials.domain.DevDojoUser;
+import com.rpolido.springboot2essentials.repository.AnimeRepository;
+import com.rpolido.springboot2essentials.repository.DevDojoUserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createAnimeToBeSaved;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpStatus.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class AuthControllerIT {
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private AnimeRepository repository;
+
+    @Autowired
+    private DevDojoUserRepository devDojoUserRepository;
+
+    private static final DevDojoUser USER = DevDojoUser.builder()
+            .name("devdojo")
+            .username("devdojo")
+            .password("{bcrypt}$2a$10$NRjAwXNf73/SRdliAt9ebOZlmLo1ZbYwKKBQzM9GSwvV6raag5QkG")
+            .authorities("ROLE_USER")
+            .build();
+
+    @Test
+    @DisplayName("token returns a bearer token that authenticates later requests when credentials are valid")
+    void token_ReturnsBearerTokenThatAuthenticates_WhenCredentialsAreValid() {
+
+        devDojoUserRepository.save(USER);
+        final var savedAnime = repository.save(createAnimeToBeSaved());
+
+        final var token = requestToken("academy");
+
+        assertThat(token.getStatusCode()).isEqualTo(OK);
+        assertThat(token.getBody()).isNotNull();
+        assertThat(token.getBody().getTokenType()).isEqualTo("Bearer");
+
+        final var animeResponseEntity = testRestTemplate.exchange("/animes/{id}", HttpMethod.GET,
+                new HttpEntity<>(bearer(token.getBody().getAccessToken())), String.class, savedAnime.getId());
+
+        assertThat(animeResponseEntity.getStatusCode()).isEqualTo(OK);
+        assertThat(animeResponseEntity.getHeaders().get(HttpHeaders.SET_COOKIE)).isNull();
+    }
+
+    @Test
+    @DisplayName("token returns 401 when password is wrong")
+    void token_Returns401_WhenPasswordIsWrong() {
+
+        devDojoUserRepository.save(USER);
+
+        assertThat(requestToken("wrong").getStatusCode()).isEqualTo(UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("bearer token returns 401 when it was tampered with")
+    void bearerToken_Returns401_WhenTamperedWith() {
+
+        devDojoUserRepository.save(USER);
+
+        final var accessToken = requestToken("academy").getBody().getAccessToken();
+        final var tampered = "X" + accessToken.substring(1);
+
+        final var animeResponseEntity = testRestTemplate.exchange("/animes", HttpMethod.GET,
+                new HttpEntity<>(bearer(tampered)), String.class);
+
+        assertThat(animeResponseEntity.getStatusCode()).isEqualTo(UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("bearer token returns 403 on admin routes when user is not admin")
+    void bearerToken_Returns403_WhenUserIsNotAdmin() {
+
+        devDojoUserRepository.save(USER);
+        final var savedAnime = repository.save(createAnimeToBeSaved());
+
+        final var accessToken = requestToken("academy").getBody().getAccessToken();
+
+        final var animeResponseEntity = testRestTemplate.exchange("/animes/admin/{id}", HttpMethod.DELETE,
+                new HttpEntity<>(bearer(accessToken)), Void.class, savedAnime.getId());
+
+        assertThat(animeResponseEntity.getStatusCode()).isEqualTo(FORBIDDEN);
+    }
+
+    private ResponseEntity<TokenResponseDTO> requestToken(String password) {
+        return testRestTemplate.postForEntity("/auth/token",
+                new TokenRequestDTO("devdojo", password), TokenResponseDTO.class);
+    }
+
+    private static HttpHeaders bearer(String accessToken) {
+        final var headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        return headers;
+    }
+}
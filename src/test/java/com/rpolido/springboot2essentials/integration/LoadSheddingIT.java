@@ -0,0 +1,83 @@
+package com.rpolido.springboot2essentials.integration;
+
+import com.rpolido.springboot2essentials.security.TokenService;
+import com.rpolido.springboot2essentials.service.AnimeService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidAnime;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Holds more {@code /animes} requests in flight than the initial limit load shedding used to
+ * start at, with the default configuration, and expects every one of them to be served.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+class LoadSheddingIT {
+
+    private static final int IN_FLIGHT = 50;
+
+    private final CountDownLatch arrived = new CountDownLatch(IN_FLIGHT);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @MockBean
+    private AnimeService animeService;
+
+    @Test
+    @DisplayName("requests to /animes are not shed with the default configuration when more than 20 are in flight")
+    void requests_AreNotShed_WhenMoreThanTwentyInFlight() throws Exception {
+
+        BDDMockito.when(animeService.findByIdOrThrowBadRequestException(anyLong()))
+                .thenAnswer(invocation -> {
+                    arrived.countDown();
+                    release.await(1, TimeUnit.MINUTES);
+                    return createValidAnime();
+                });
+
+        final var token = tokenService.issue(new UsernamePasswordAuthenticationToken(
+                "devdojo", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+
+        final var client = HttpClient.newHttpClient();
+        final var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/animes/1"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+
+        final var responses = IntStream.range(0, IN_FLIGHT)
+                .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .collect(Collectors.toList());
+
+        assertThat(arrived.await(30, TimeUnit.SECONDS)).isTrue();
+
+        release.countDown();
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        assertThat(responses).allSatisfy(response -> assertThat(response.get().statusCode()).isEqualTo(200));
+    }
+}
@@ -0,0 +1,105 @@
+package com.rpolido.springboot2essentials.integration;
+
+import com.rpolido.springboot2essentials.security.TokenService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Holds more requests in flight than the 200 threads of the default Tomcat pool. Needs a Java 21
+ * runtime, run it with ./gradlew test -PvirtualThreads.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.virtual-threads.enabled=true")
+@AutoConfigureTestDatabase
+@EnabledIf("isJava21OrLater")
+class VirtualThreadsIT {
+
+    private static final int IN_FLIGHT = 500;
+
+    private static final CountDownLatch ARRIVED = new CountDownLatch(IN_FLIGHT);
+    private static final CountDownLatch RELEASE = new CountDownLatch(1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TokenService tokenService;
+
+    static boolean isJava21OrLater() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        BlockingController blockingController() {
+            return new BlockingController();
+        }
+    }
+
+    // Not a @RestController, so component scanning in the other tests does not pick it up
+    @RequestMapping
+    @ResponseBody
+    static class BlockingController {
+
+        @GetMapping("/blocking")
+        String blocking() throws InterruptedException {
+            ARRIVED.countDown();
+            RELEASE.await(1, TimeUnit.MINUTES);
+            return Thread.currentThread().toString();
+        }
+    }
+
+    @Test
+    @DisplayName("requests run on virtual threads with more in flight than the default thread pool")
+    void requests_RunOnVirtualThreads_WhenMoreInFlightThanDefaultPool() throws Exception {
+
+        final var token = tokenService.issue(new UsernamePasswordAuthenticationToken(
+                "devdojo", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+
+        final var client = HttpClient.newHttpClient();
+        final var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/blocking"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+
+        final var responses = IntStream.range(0, IN_FLIGHT)
+                .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .collect(Collectors.toList());
+
+        assertThat(ARRIVED.await(30, TimeUnit.SECONDS)).isTrue();
+
+        RELEASE.countDown();
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        assertThat(responses).allSatisfy(response -> {
+            assertThat(response.get().statusCode()).isEqualTo(200);
+            assertThat(response.get().body()).startsWith("VirtualThread");
+        });
+    }
+}
@@ -0,0 +1,156 @@
+package com.rpolido.springboot2essentials.invalidation;
+
+import com.rpolido.springboot2essentials.config.SecondLevelCacheConfig;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import com.rpolido.springboot2essentials.event.CachesStaleEvent;
+import com.rpolido.springboot2essentials.repository.AnimeRepository;
+import com.rpolido.springboot2essentials.security.DevDojoUserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidAnime;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(SpringExtension.class)
+@DisplayName("Tests for Invalidation Bus")
+class InvalidationBusTest {
+
+    @Mock
+    private AnimeRepository animeRepository;
+
+    @Mock
+    private DevDojoUserCache userCache;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    @Mock
+    private ApplicationEventPublisher localEventPublisher;
+
+    @Mock
+    private ApplicationEventPublisher remoteEventPublisher;
+
+    @Mock
+    private InvalidationTransport failingTransport;
+
+    private List<InvalidationMessage> log;
+
+    private InvalidationBus localBus;
+
+    private InvalidationBus remoteBus;
+
+    @BeforeEach
+    void setUp() {
+        BDDMockito.when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        BDDMockito.when(sessionFactory.getCache()).thenReturn(secondLevelCache);
+        BDDMockito.when(animeRepository.findAllById(List.of(1L))).thenReturn(List.of(createValidAnime()));
+        BDDMockito.when(failingTransport.receive()).thenThrow(new DataAccessResourceFailureException("Database down"));
+
+        log = new ArrayList<>();
+        localBus = bus("local", new InMemoryInvalidationTransport(log), localEventPublisher, Duration.ofSeconds(30));
+        remoteBus = bus("remote", new InMemoryInvalidationTransport(log), remoteEventPublisher, Duration.ofSeconds(30));
+    }
+
+    @Test
+    @DisplayName("poll replays anime changes of other instances as remote events")
+    void poll_PublishesRemoteEvent_WhenAnotherInstanceSavedAnime() {
+
+        localBus.onAnimeChanged(AnimeChangedEvent.saved(List.of(createValidAnime())));
+        remoteBus.poll();
+
+        final var event = ArgumentCaptor.forClass(AnimeChangedEvent.class);
+        BDDMockito.verify(remoteEventPublisher).publishEvent(event.capture());
+
+        assertThat(event.getValue().isRemote()).isTrue();
+        assertThat(event.getValue().getType()).isEqualTo(AnimeChangedEvent.ChangeType.SAVED);
+        assertThat(event.getValue().getAnimes()).extracting(Anime::getName).containsExactly(createValidAnime().getName());
+        BDDMockito.verify(secondLevelCache).evictEntityData(Anime.class, 1L);
+        BDDMockito.verify(secondLevelCache).evictQueryRegion(SecondLevelCacheConfig.ANIME_BY_NAME_REGION);
+    }
+
+    @Test
+    @DisplayName("poll skips the changes made by this instance")
+    void poll_SkipsOwnChanges_WhenThisInstanceDeletedAnime() {
+
+        localBus.onAnimeChanged(AnimeChangedEvent.deleted(List.of(1L)));
+        localBus.poll();
+
+        BDDMockito.verifyNoInteractions(localEventPublisher, secondLevelCache);
+        assertThat(log).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("onAnimeChanged does not send remote events back to the other instances")
+    void onAnimeChanged_DoesNotPublish_WhenEventIsRemote() {
+
+        remoteBus.onAnimeChanged(AnimeChangedEvent.deleted(List.of(1L)).asRemote());
+
+        assertThat(log).isEmpty();
+    }
+
+    @Test
+    @DisplayName("poll drops all caches when the transport failed for longer than the staleness bound")
+    void poll_PublishesCachesStale_WhenStalenessBoundExceeded() {
+
+        bus("stale", failingTransport, localEventPublisher, Duration.ZERO).poll();
+        bus("fresh", failingTransport, remoteEventPublisher, Duration.ofMinutes(1)).poll();
+
+        BDDMockito.verify(localEventPublisher).publishEvent(any(CachesStaleEvent.class));
+        BDDMockito.verify(secondLevelCache).evictAllRegions();
+        BDDMockito.verifyNoInteractions(remoteEventPublisher);
+    }
+
+    @Test
+    @DisplayName("poll drops all caches once while stale and once more when polling recovers")
+    void poll_PublishesCachesStaleOnceUntilRecovered_WhenTransportKeepsFailing() {
+
+        final var transport = BDDMockito.mock(InvalidationTransport.class);
+        BDDMockito.when(transport.receive())
+                .thenThrow(new DataAccessResourceFailureException("Database down"))
+                .thenThrow(new DataAccessResourceFailureException("Database down"))
+                .thenThrow(new DataAccessResourceFailureException("Database down"))
+                .thenReturn(List.of());
+
+        final var bus = bus("stale", transport, localEventPublisher, Duration.ZERO);
+        bus.poll();
+        bus.poll();
+        bus.poll();
+
+        BDDMockito.verify(localEventPublisher).publishEvent(any(CachesStaleEvent.class));
+
+        bus.poll();
+
+        BDDMockito.verify(localEventPublisher, BDDMockito.times(2)).publishEvent(any(CachesStaleEvent.class));
+    }
+
+    private InvalidationBus bus(String nodeId, InvalidationTransport transport, ApplicationEventPublisher eventPublisher,
+                                Duration maxStaleness) {
+
+        return new InvalidationBus(transport, nodeId, maxStaleness, animeRepository, userCache, entityManagerFactory,
+                eventPublisher, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,82 @@
+package com.rpolido.springboot2essentials.invalidation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@DisplayName("Tests for Jdbc Invalidation Transport")
+class JdbcInvalidationTransportTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcInvalidationTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        transport = new JdbcInvalidationTransport(jdbcTemplate, Duration.ofMinutes(1), 1000, Duration.ofHours(1));
+        transport.receive();
+    }
+
+    @Test
+    @DisplayName("receive returns the messages published since the previous call")
+    void receive_ReturnsPublishedMessages_WhenSuccessful() {
+
+        final var message = new InvalidationMessage("node", InvalidationMessage.Entity.ANIME,
+                InvalidationMessage.Change.SAVED, List.of(1L, 2L));
+        transport.publish(message);
+
+        assertThat(transport.receive()).containsExactly(message);
+        assertThat(transport.receive()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("receive returns a message committed after a higher id was read")
+    void receive_ReturnsMessage_WhenLowerIdShowsUpLater() {
+
+        final var watermark = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from entity_change", Long.class);
+
+        insert(watermark + 3, 3L);
+        assertThat(transport.receive()).flatExtracting(InvalidationMessage::getIds).containsExactly(3L);
+
+        insert(watermark + 1, 1L);
+        assertThat(transport.receive()).flatExtracting(InvalidationMessage::getIds).containsExactly(1L);
+        assertThat(transport.receive()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("receive moves past a gap followed by more rows than the batch size")
+    void receive_MovesPastGap_WhenMoreRowsThanBatchSizeFollowIt() {
+
+        final var batchedTransport = new JdbcInvalidationTransport(jdbcTemplate, Duration.ofMinutes(1), 2, Duration.ofHours(1));
+        batchedTransport.receive();
+
+        final var watermark = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from entity_change", Long.class);
+        for (var id = 2L; id <= 5L; id++) {
+            insert(watermark + id, id);
+        }
+
+        assertThat(batchedTransport.receive()).flatExtracting(InvalidationMessage::getIds).containsExactly(2L, 3L);
+        assertThat(batchedTransport.receive()).flatExtracting(InvalidationMessage::getIds).containsExactly(4L, 5L);
+
+        insert(watermark + 1, 1L);
+        assertThat(batchedTransport.receive()).flatExtracting(InvalidationMessage::getIds).containsExactly(1L);
+        assertThat(batchedTransport.receive()).isEmpty();
+    }
+
+    private void insert(long id, long animeId) {
+        jdbcTemplate.update("insert into entity_change (id, node_id, entity, change_type, entity_ids, created_at) values (?, ?, ?, ?, ?, ?)",
+                id, "other", "ANIME", "DELETED", String.valueOf(animeId), Timestamp.from(Instant.now()));
+    }
+}
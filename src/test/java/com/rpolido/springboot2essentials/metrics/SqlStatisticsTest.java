@@ -0,0 +1,115 @@
+package com.rpolido.springboot2essentials.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for Sql Statistics")
+class SqlStatisticsTest {
+
+    private static final String SELECT = "select anime0_.id as id1_0_ from anime anime0_ where anime0_.id=?";
+
+    private SqlStatistics sqlStatistics;
+
+    @BeforeEach
+    void setUp() {
+        sqlStatistics = new SqlStatistics(Duration.ofMillis(100), 2, 3, 2);
+    }
+
+    @Test
+    @DisplayName("topStatements aggregates executions of the same statement ignoring whitespace")
+    void topStatements_AggregatesExecutions_WhenSameStatementRunsAgain() {
+
+        sqlStatistics.record(SELECT, TimeUnit.MILLISECONDS.toNanos(2), true);
+        sqlStatistics.record(SELECT.replace(" ", "\n   "), TimeUnit.MILLISECONDS.toNanos(4), false);
+
+        assertThat(sqlStatistics.topStatements(10))
+                .singleElement()
+                .satisfies(statement -> {
+                    assertThat(statement.getSql()).isEqualTo(SELECT);
+                    assertThat(statement.getExecutions()).isEqualTo(2);
+                    assertThat(statement.getFailures()).isEqualTo(1);
+                    assertThat(statement.getMeanMillis()).isEqualTo(3);
+                    assertThat(statement.getMaxMillis()).isEqualTo(4);
+                });
+    }
+
+    @Test
+    @DisplayName("getSlowStatements keeps only the newest statements over the threshold")
+    void getSlowStatements_KeepsNewestSlowStatements_WhenOverThreshold() {
+
+        sqlStatistics.record("select 1", TimeUnit.MILLISECONDS.toNanos(150), true);
+        sqlStatistics.record("select 2", TimeUnit.MILLISECONDS.toNanos(10), true);
+        sqlStatistics.record("select 3", TimeUnit.MILLISECONDS.toNanos(200), true);
+        sqlStatistics.record("select 4", TimeUnit.MILLISECONDS.toNanos(300), true);
+
+        assertThat(sqlStatistics.getSlowStatements())
+                .extracting(SqlStatistics.SlowStatement::getSql)
+                .containsExactly("select 4", "select 3");
+    }
+
+    @Test
+    @DisplayName("endRequest flags statements repeated within one request as N+1 suspects")
+    void endRequest_FlagsNPlusOne_WhenStatementRepeatsWithinRequest() {
+
+        sqlStatistics.beginRequest();
+        for (var i = 0; i < 3; i++) {
+            sqlStatistics.record(SELECT, 1000, true);
+        }
+        sqlStatistics.record("select 1", 1000, true);
+        sqlStatistics.endRequest("GET /animes");
+
+        sqlStatistics.record(SELECT, 1000, true);
+
+        assertThat(sqlStatistics.getNPlusOneSuspects())
+                .singleElement()
+                .satisfies(suspect -> {
+                    assertThat(suspect.getRequest()).isEqualTo("GET /animes");
+                    assertThat(suspect.getSql()).isEqualTo(SELECT);
+                    assertThat(suspect.getExecutions()).isEqualTo(3);
+                });
+    }
+
+    @Test
+    @DisplayName("record times statements by type in the registry it was bound to, once bound")
+    void record_TimesStatementsByType_WhenBoundToRegistry() {
+
+        final var meterRegistry = new SimpleMeterRegistry();
+
+        sqlStatistics.record(SELECT, 1000, true);
+        sqlStatistics.bindTo(meterRegistry);
+        sqlStatistics.record(SELECT, 1000, true);
+        sqlStatistics.record("insert into anime (name) values (?)", TimeUnit.MILLISECONDS.toNanos(150), false);
+
+        assertThat(meterRegistry.get("jdbc.statements").tag("type", "select").tag("success", "true").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("jdbc.statements").tag("type", "insert").tag("success", "false").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("jdbc.statements.slow").counter().count()).isEqualTo(1);
+        assertThat(sqlStatistics.topStatements(10)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("record stops tracking new statements when the maximum is reached")
+    void record_CountsUntracked_WhenMaximumStatementsReached() {
+
+        sqlStatistics.record("select 1", 1000, true);
+        sqlStatistics.record("select 2", 1000, true);
+        sqlStatistics.record("select 3", 1000, true);
+        sqlStatistics.record("select 1", 1000, true);
+
+        assertThat(sqlStatistics.getTrackedStatements()).isEqualTo(2);
+        assertThat(sqlStatistics.getUntrackedExecutions()).isEqualTo(1);
+
+        sqlStatistics.reset();
+
+        assertThat(sqlStatistics.topStatements(10)).isEmpty();
+        assertThat(sqlStatistics.getUntrackedExecutions()).isZero();
+    }
+}
@@ -0,0 +1,48 @@
+package com.rpolido.springboot2essentials.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for Adaptive Concurrency Limiter")
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 4, 2, 8,
+            Duration.ofMillis(100), 0.5, Duration.ofSeconds(1), new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("tryAcquire returns false when the limit of requests is in flight")
+    void tryAcquire_ReturnsFalse_WhenLimitReached() {
+
+        for (var i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    @DisplayName("release lowers the limit when the request was slower than the latency threshold")
+    void release_LowersLimit_WhenRequestIsSlow() {
+
+        limiter.tryAcquire();
+        limiter.release(System.nanoTime() - Duration.ofSeconds(1).toNanos());
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("release raises the limit when a fast request completes with half the limit in use")
+    void release_RaisesLimit_WhenRequestIsFast() {
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(System.nanoTime());
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,52 @@
+package com.rpolido.springboot2essentials.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for Principal Rate Limiter")
+class PrincipalRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PrincipalRateLimiter rateLimiter = new PrincipalRateLimiter(true, 100, Duration.ofMinutes(1),
+            1, 0.001, 2, 0.001, 3, 0.001, meterRegistry);
+
+    @Test
+    @DisplayName("tryAcquire returns the wait for the next token when the bucket of the user is empty")
+    void tryAcquire_ReturnsWait_WhenBucketIsEmpty() {
+
+        assertThat(rateLimiter.tryAcquire(RateLimitRoute.ALL, "devdojo")).isZero();
+        assertThat(rateLimiter.tryAcquire(RateLimitRoute.ALL, "devdojo")).isZero();
+
+        assertThat(rateLimiter.tryAcquire(RateLimitRoute.ALL, "devdojo")).isPositive();
+        assertThat(meterRegistry.get("rate.limit.requests").tag("route", "all").tag("result", "limited").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("tryAcquire keeps a bucket per user and per route")
+    void tryAcquire_KeepsSeparateBuckets_WhenUserOrRouteDiffers() {
+
+        assertThat(rateLimiter.tryAcquire(RateLimitRoute.ADMIN, "devdojo")).isZero();
+        assertThat(rateLimiter.tryAcquire(RateLimitRoute.ADMIN, "devdojo")).isPositive();
+
+        assertThat(rateLimiter.tryAcquire(RateLimitRoute.ADMIN, "william")).isZero();
+        assertThat(rateLimiter.tryAcquire(RateLimitRoute.DEFAULT, "devdojo")).isZero();
+    }
+
+    @Test
+    @DisplayName("TokenBucket gives a token again once it is refilled")
+    void tokenBucket_GivesToken_WhenRefilled() {
+
+        final var bucket = new TokenBucket(1, 10, 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(Duration.ofMillis(100).toNanos());
+        assertThat(bucket.tryAcquire(Duration.ofMillis(100).toNanos())).isZero();
+    }
+}
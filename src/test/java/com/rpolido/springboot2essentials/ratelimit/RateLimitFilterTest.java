@@ -0,0 +1,71 @@
+package com.rpolido.springboot2essentials.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for Rate Limit Filter")
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PrincipalRateLimiter rateLimiter = new PrincipalRateLimiter(false, 100, Duration.ofMinutes(1),
+            1, 1, 1, 1, 1, 1, meterRegistry);
+
+    // every measured request is slower than a zero threshold, so it lowers the limit
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 4, 2, 8,
+            Duration.ZERO, 0.5, Duration.ofSeconds(1), meterRegistry);
+
+    private final RateLimitFilter filter = new RateLimitFilter(rateLimiter, concurrencyLimiter);
+
+    @Test
+    @DisplayName("doFilter keeps an async request in flight until its response completes")
+    void doFilter_ReleasesOnComplete_WhenRequestIsAsync() throws Exception {
+
+        final var request = request("/animes/stream");
+        request.setAsyncSupported(true);
+        final FilterChain startAsync = (req, res) -> req.startAsync();
+
+        filter.doFilter(request, new MockHttpServletResponse(), startAsync);
+
+        assertThat(meterRegistry.get("load.shedding.in-flight").gauge().value()).isEqualTo(1);
+
+        request.getAsyncContext().complete();
+
+        assertThat(meterRegistry.get("load.shedding.in-flight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("doFilter does not adapt the limit to the latency of the stream and bulk endpoints")
+    void doFilter_KeepsLimit_WhenEndpointIsUnmeasured() throws Exception {
+
+        for (final var path : new String[]{"/animes/stream", "/animes/bulk", "/animes/admin/bulk"}) {
+            filter.doFilter(request(path), new MockHttpServletResponse(), (req, res) -> { });
+        }
+
+        assertThat(concurrencyLimiter.getLimit()).isEqualTo(4);
+        assertThat(meterRegistry.get("load.shedding.in-flight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("doFilter adapts the limit to the latency of the other endpoints")
+    void doFilter_AdaptsLimit_WhenEndpointIsMeasured() throws Exception {
+
+        filter.doFilter(request("/animes/1"), new MockHttpServletResponse(), (req, res) -> { });
+
+        assertThat(concurrencyLimiter.getLimit()).isEqualTo(2);
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        final var request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        return request;
+    }
+}
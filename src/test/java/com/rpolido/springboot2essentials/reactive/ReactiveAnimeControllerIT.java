@@ -0,0 +1,193 @@
+package com.rpolido.springboot2essentials.reactive;
+
+import com.rpolido.springboot2essentials.controller.dto.AnimeInsertDTO;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.reactive.repository.ReactiveAnimeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.stream.IntStream;
+
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createAnimeToBeSaved;
+import static com.rpolido.springboot2essentials.util.AnimeInsertDTOCreator.createAnimeInsertDTO;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = ReactiveAnimeApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.r2dbc.url=r2dbc:h2:mem:///reactive;DB_CLOSE_DELAY=-1",
+                "spring.r2dbc.username=sa",
+                "spring.r2dbc.password=",
+                "spring.sql.init.mode=always",
+                "spring.sql.init.schema-locations=classpath:reactive-schema.sql"
+        })
+@ActiveProfiles(ReactiveAnimeApplication.PROFILE)
+@DisplayName("Tests for the reactive Anime API")
+class ReactiveAnimeControllerIT {
+
+    private static final String PASSWORD = "academy";
+    private static final String PASSWORD_HASH = "{bcrypt}$2a$10$NRjAwXNf73/SRdliAt9ebOZlmLo1ZbYwKKBQzM9GSwvV6raag5QkG";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveAnimeRepository repository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setup() {
+
+        repository.deleteAll()
+                .then(databaseClient.sql("delete from dev_dojo_user").then())
+                .then(databaseClient.sql("delete from entity_change").then())
+                .then(insertUser("devdojo", "ROLE_USER"))
+                .then(insertUser("william", "ROLE_USER,ROLE_ADMIN"))
+                .block();
+    }
+
+    @Test
+    @DisplayName("listAll streams every anime as NDJSON when successful")
+    void listAll_StreamsEveryAnimeAsNdjson_WhenSuccessful() {
+
+        repository.saveAll(Flux.fromStream(IntStream.range(0, 50).mapToObj(i -> createAnimeToBeSaved()))).blockLast();
+
+        final var animes = webTestClient.get().uri("/animes/all")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .headers(headers -> headers.setBasicAuth("devdojo", PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Anime.class)
+                .getResponseBody();
+
+        StepVerifier.create(animes, 10)
+                .expectNextCount(10)
+                .thenRequest(40)
+                .expectNextCount(40)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("save creates the anime and findById returns it when successful")
+    void save_CreatesAnimeAndFindByIdReturnsIt_WhenSuccessful() {
+
+        final var saved = webTestClient.post().uri("/animes")
+                .headers(headers -> headers.setBasicAuth("devdojo", PASSWORD))
+                .bodyValue(createAnimeInsertDTO())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Anime.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(saved).isNotNull();
+        assertThat(saved.getId()).isNotNull();
+
+        webTestClient.get().uri("/animes/{id}", saved.getId())
+                .headers(headers -> headers.setBasicAuth("devdojo", PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Anime.class)
+                .isEqualTo(saved);
+    }
+
+    @Test
+    @DisplayName("save returns 400 when the anime name is empty")
+    void save_Returns400_WhenNameIsEmpty() {
+
+        webTestClient.post().uri("/animes")
+                .headers(headers -> headers.setBasicAuth("devdojo", PASSWORD))
+                .bodyValue(new AnimeInsertDTO(""))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("findById returns 400 when anime is not found")
+    void findById_Returns400_WhenAnimeIsNotFound() {
+
+        webTestClient.get().uri("/animes/{id}", 1_000)
+                .headers(headers -> headers.setBasicAuth("devdojo", PASSWORD))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("delete returns 403 when user is not admin and removes anime when admin")
+    void delete_Returns403WhenUserIsNotAdminAndRemovesAnimeWhenAdmin() {
+
+        final var saved = repository.save(createAnimeToBeSaved()).block();
+
+        webTestClient.delete().uri("/animes/admin/{id}", saved.getId())
+                .headers(headers -> headers.setBasicAuth("devdojo", PASSWORD))
+                .exchange()
+                .expectStatus().isForbidden();
+
+        webTestClient.delete().uri("/animes/admin/{id}", saved.getId())
+                .headers(headers -> headers.setBasicAuth("william", PASSWORD))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        StepVerifier.create(repository.count())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("save and delete record the change in entity_change for the servlet instances when successful")
+    void saveAndDelete_RecordChangeInEntityChange_WhenSuccessful() {
+
+        final var saved = webTestClient.post().uri("/animes")
+                .headers(headers -> headers.setBasicAuth("devdojo", PASSWORD))
+                .bodyValue(createAnimeInsertDTO())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Anime.class)
+                .returnResult()
+                .getResponseBody();
+
+        webTestClient.delete().uri("/animes/admin/{id}", saved.getId())
+                .headers(headers -> headers.setBasicAuth("william", PASSWORD))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        final var changes = databaseClient.sql("select entity, change_type, entity_ids from entity_change order by id")
+                .map(row -> row.get("entity", String.class) + " " + row.get("change_type", String.class)
+                        + " " + row.get("entity_ids", String.class))
+                .all();
+
+        StepVerifier.create(changes)
+                .expectNext("ANIME SAVED " + saved.getId())
+                .expectNext("ANIME DELETED " + saved.getId())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("requests return 401 when credentials are missing")
+    void requests_Return401_WhenCredentialsAreMissing() {
+
+        webTestClient.get().uri("/animes/all")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    private Mono<Void> insertUser(String username, String authorities) {
+        return databaseClient.sql("insert into dev_dojo_user (name, username, password, authorities) values (:name, :username, :password, :authorities)")
+                .bind("name", username)
+                .bind("username", username)
+                .bind("password", PASSWORD_HASH)
+                .bind("authorities", authorities)
+                .then();
+    }
+}
@@ -1,16 +1,21 @@
 package com.rpolido.springboot2essentials.repository;
 
 import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.repository.projection.AnimeSummary;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import javax.validation.ConstraintViolationException;
+import java.util.List;
 
 import static com.rpolido.springboot2essentials.util.AnimeCreator.createAnimeToBeSaved;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @DisplayName("Tests for Anime Repository")
@@ -84,6 +89,121 @@ class AnimeRepositoryTest {
         assertThat(animes).isEmpty();
     }
 
+    @Test
+    @DisplayName("Stream All Summaries returns every saved anime ordered by id when Successful")
+    public void streamAllSummaries_ReturnsAllAnimesOrderedById_WhenSuccessful() {
+        final var first = animeRepository.save(createAnimeToBeSaved());
+        final var second = animeRepository.save(createAnimeToBeSaved());
+
+        try (final var animes = animeRepository.streamAllSummaries()) {
+            assertThat(animes.map(AnimeSummary::id)).containsExactly(first.getId(), second.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Find All Summaries returns a page of summaries with the total count when Successful")
+    public void findAllSummaries_ReturnsPageOfSummaries_WhenSuccessful() {
+        final var first = animeRepository.save(createAnimeToBeSaved());
+        animeRepository.save(createAnimeToBeSaved());
+
+        final var page = animeRepository.findAllSummaries(PageRequest.of(0, 1, Sort.by("id")));
+
+        assertThat(page.getContent()).containsExactly(summary(first));
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Find Summaries After returns the next slice after the given id when Successful")
+    public void findSummariesAfter_ReturnsNextSlice_WhenSuccessful() {
+        final var first = animeRepository.save(createAnimeToBeSaved());
+        final var second = animeRepository.save(createAnimeToBeSaved());
+        final var third = animeRepository.save(createAnimeToBeSaved());
+
+        final var slice = animeRepository.findSummariesAfter(first.getId(), PageRequest.of(0, 1));
+
+        assertThat(slice.getContent()).containsExactly(summary(second));
+        assertThat(slice.hasNext()).isTrue();
+
+        final var lastSlice = animeRepository.findSummariesAfter(second.getId(), PageRequest.of(0, 1));
+
+        assertThat(lastSlice.getContent()).containsExactly(summary(third));
+        assertThat(lastSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Insert All In Batch persists every anime and sets the generated ids when Successful")
+    public void insertAllInBatch_PersistAnimesAndSetIds_WhenSuccessful() {
+        final var animes = animeRepository.insertAllInBatch(List.of(createAnimeToBeSaved(), createAnimeToBeSaved()));
+
+        assertThat(animes).hasSize(2)
+                .allSatisfy(anime -> assertThat(anime.getId()).isNotNull());
+
+        assertThat(animeRepository.findAllById(List.of(animes.get(0).getId(), animes.get(1).getId())))
+                .extracting(Anime::getName)
+                .containsOnly(createAnimeToBeSaved().getName());
+    }
+
+    @Test
+    @DisplayName("Update Names In Batch renames every anime when Successful")
+    public void updateNamesInBatch_RenamesAnimes_WhenSuccessful() {
+        final var animes = animeRepository.insertAllInBatch(List.of(createAnimeToBeSaved(), createAnimeToBeSaved()));
+        animes.forEach(anime -> anime.setName("Overlord"));
+
+        final var updateCounts = animeRepository.updateNamesInBatch(animes);
+
+        assertThat(updateCounts).containsExactly(1, 1);
+        assertThat(animeRepository.findAllById(List.of(animes.get(0).getId(), animes.get(1).getId())))
+                .extracting(Anime::getName, Anime::getVersion)
+                .containsOnly(tuple("Overlord", 1L));
+    }
+
+    @Test
+    @DisplayName("Find Version By Id returns the current version when Successful")
+    public void findVersionById_ReturnsCurrentVersion_WhenSuccessful() {
+        final var animeSaved = animeRepository.saveAndFlush(createAnimeToBeSaved());
+
+        animeSaved.setName("Overlord");
+        animeRepository.saveAndFlush(animeSaved);
+
+        assertThat(animeRepository.findVersionById(animeSaved.getId())).contains(1L);
+        assertThat(animeRepository.findVersionById(animeSaved.getId() + 1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Find Existing Ids returns only the ids stored when Successful")
+    public void findExistingIds_ReturnsStoredIds_WhenSuccessful() {
+        final var animeSaved = animeRepository.save(createAnimeToBeSaved());
+
+        assertThat(animeRepository.findExistingIds(List.of(animeSaved.getId(), animeSaved.getId() + 1)))
+                .containsExactly(animeSaved.getId());
+    }
+
+    @Test
+    @DisplayName("Delete By Id In removes every anime with a single statement when Successful")
+    public void deleteByIdIn_RemovesAnimes_WhenSuccessful() {
+        final var first = animeRepository.save(createAnimeToBeSaved());
+        final var second = animeRepository.save(createAnimeToBeSaved());
+
+        final var deleted = animeRepository.deleteByIdIn(List.of(first.getId(), second.getId()));
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(animeRepository.findExistingIds(List.of(first.getId(), second.getId()))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Stream Names returns id and name of every anime when Successful")
+    public void streamNames_ReturnsIdAndNameOfEveryAnime_WhenSuccessful() {
+        final var animeSaved = animeRepository.save(createAnimeToBeSaved());
+
+        try (final var names = animeRepository.streamNames()) {
+            assertThat(names).singleElement()
+                    .satisfies(view -> {
+                        assertThat(view.getId()).isEqualTo(animeSaved.getId());
+                        assertThat(view.getName()).isEqualTo(animeSaved.getName());
+                    });
+        }
+    }
+
     @Test
     @DisplayName("Save throw ConstraintViolationException when name is empty")
     public void save_ThrowConstraintViolationException_WhenNameIsEmpty() {
@@ -94,4 +214,8 @@ class AnimeRepositoryTest {
                 .withMessageContaining("The anime name cannot be empty");
 
     }
-}
\ No newline at end of file
+
+    private static AnimeSummary summary(Anime anime) {
+        return new AnimeSummary(anime.getId(), anime.getName(), anime.getVersion());
+    }
+}
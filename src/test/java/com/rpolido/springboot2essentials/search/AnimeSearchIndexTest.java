@@ -0,0 +1,99 @@
+package com.rpolido.springboot2essentials.search;
+
+import com.rpolido.springboot2essentials.controller.dto.AnimeSearchHitDTO;
+import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for Anime Search Index")
+class AnimeSearchIndexTest {
+
+    private AnimeSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+
+        index = new AnimeSearchIndex(null, Mockito.mock(PlatformTransactionManager.class), 0.3);
+
+        index.index(1L, "Hajime no Ippo");
+        index.index(2L, "Hajime no Ippo: Rising");
+        index.index(3L, "Shingeki no Kyojin");
+        index.index(4L, "Pokémon");
+    }
+
+    @Test
+    @DisplayName("search ranks exact matches before prefixes and contains when successful")
+    void search_RanksExactBeforePrefixAndContains_WhenSuccessful() {
+
+        final var hits = index.search("hajime no ippo", PageRequest.of(0, 10));
+
+        assertThat(hits.getContent())
+                .extracting(AnimeSearchHitDTO::getId)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("search finds names with a typo when they are similar enough")
+    void search_FindsSimilarNames_WhenQueryHasTypo() {
+
+        final var hits = index.search("shingeki no kyojn", PageRequest.of(0, 10));
+
+        assertThat(hits.getContent())
+                .extracting(AnimeSearchHitDTO::getId)
+                .containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("search ignores case and accents and paginates the ranked hits")
+    void search_IgnoresCaseAndAccentsAndPaginates_WhenSuccessful() {
+
+        assertThat(index.search("POKEMON", PageRequest.of(0, 10)).getContent())
+                .extracting(AnimeSearchHitDTO::getName)
+                .containsExactly("Pokémon");
+
+        final var secondPage = index.search("ippo", PageRequest.of(1, 1));
+
+        assertThat(secondPage.getTotalElements()).isEqualTo(2);
+        assertThat(secondPage.getContent())
+                .extracting(AnimeSearchHitDTO::getId)
+                .containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("autocomplete returns names with a word starting with the prefix")
+    void autocomplete_ReturnsNamesWithWordStartingWithPrefix_WhenSuccessful() {
+
+        assertThat(index.autocomplete("ip", 10))
+                .extracting(AnimeSearchHitDTO::getId)
+                .containsExactly(1L, 2L);
+
+        assertThat(index.autocomplete("no", 1)).hasSize(1);
+        assertThat(index.autocomplete("zzz", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("onAnimeChanged reindexes saved animes and drops deleted ones")
+    void onAnimeChanged_FollowsSavedAndDeletedAnimes_WhenSuccessful() {
+
+        index.onAnimeChanged(AnimeChangedEvent.saved(List.of(Anime.builder().id(1L).name("Overlord").build())));
+        index.onAnimeChanged(AnimeChangedEvent.deleted(List.of(3L)));
+
+        assertThat(index.autocomplete("hajime", 10))
+                .extracting(AnimeSearchHitDTO::getId)
+                .containsExactly(2L);
+        assertThat(index.autocomplete("over", 10))
+                .extracting(AnimeSearchHitDTO::getId)
+                .containsExactly(1L);
+        assertThat(index.search("shingeki", PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,58 @@
+package com.rpolido.springboot2essentials.security;
+
+import com.rpolido.springboot2essentials.domain.DevDojoUser;
+import com.rpolido.springboot2essentials.invalidation.InvalidationBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for DevDojo User Cache Invalidator")
+class DevDojoUserCacheInvalidatorTest {
+
+    private DevDojoUserCache userCache;
+
+    private DevDojoUserCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setup() {
+        userCache = new DevDojoUserCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        invalidator = new DevDojoUserCacheInvalidator(
+                new StaticListableBeanFactory(Map.of("devDojoUserCache", userCache)).getBeanProvider(DevDojoUserCache.class),
+                new StaticListableBeanFactory().getBeanProvider(InvalidationBus.class));
+    }
+
+    @Test
+    @DisplayName("updated evicts the details cached under the old username when the user is renamed")
+    void updated_EvictsOldUsername_WhenUserIsRenamed() {
+
+        final var user = DevDojoUser.builder().id(1L).name("William Suane").username("william")
+                .password("{noop}academy").authorities("ROLE_USER").build();
+        userCache.putUserInCache(user);
+
+        user.setUsername("william.suane");
+        invalidator.updated(user);
+
+        assertThat(userCache.getUserFromCache("william")).isNull();
+        assertThat(userCache.getUserFromCache("william.suane")).isNull();
+    }
+
+    @Test
+    @DisplayName("removed evicts the user when the user is deleted")
+    void removed_EvictsUser_WhenUserIsDeleted() {
+
+        final var user = DevDojoUser.builder().id(1L).name("William Suane").username("william")
+                .password("{noop}academy").authorities("ROLE_USER").build();
+        userCache.putUserInCache(user);
+
+        invalidator.removed(user);
+
+        assertThat(userCache.getUserFromCache("william")).isNull();
+    }
+}
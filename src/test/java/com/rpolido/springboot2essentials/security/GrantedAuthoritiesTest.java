@@ -0,0 +1,77 @@
+package com.rpolido.springboot2essentials.security;
+
+import com.rpolido.springboot2essentials.domain.DevDojoUser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@DisplayName("Tests for Granted Authorities")
+class GrantedAuthoritiesTest {
+
+    @Test
+    @DisplayName("fromCommaSeparated returns every authority in order when successful")
+    void fromCommaSeparated_ReturnsAuthoritiesInOrder_WhenSuccessful() {
+
+        assertThat(GrantedAuthorities.fromCommaSeparated("ROLE_USER,ROLE_ADMIN"))
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("fromCommaSeparated returns the same set and shared authorities when called again")
+    void fromCommaSeparated_ReturnsSharedInstances_WhenCalledAgain() {
+
+        final var admin = GrantedAuthorities.fromCommaSeparated("ROLE_USER,ROLE_ADMIN");
+        final var user = GrantedAuthorities.fromCommaSeparated("ROLE_USER");
+
+        assertThat(GrantedAuthorities.fromCommaSeparated("ROLE_USER,ROLE_ADMIN")).isSameAs(admin);
+        assertThat(user.iterator().next()).isSameAs(admin.iterator().next());
+    }
+
+    @Test
+    @DisplayName("fromCommaSeparated does not keep sets with authorities the application does not check")
+    void fromCommaSeparated_ReturnsNewSet_WhenAuthorityIsUnknown() {
+
+        final var authorities = GrantedAuthorities.fromCommaSeparated("ROLE_USER,SCOPE_anything");
+
+        assertThat(GrantedAuthorities.fromCommaSeparated("ROLE_USER,SCOPE_anything"))
+                .isEqualTo(authorities)
+                .isNotSameAs(authorities);
+    }
+
+    @Test
+    @DisplayName("fromCommaSeparated returns an immutable set")
+    void fromCommaSeparated_ReturnsImmutableSet_WhenSuccessful() {
+
+        final var authorities = GrantedAuthorities.fromCommaSeparated("ROLE_USER");
+
+        assertThatExceptionOfType(UnsupportedOperationException.class)
+                .isThrownBy(() -> authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    @Test
+    @DisplayName("getAuthorities of DevDojoUser returns the parsed authorities")
+    void getAuthorities_ReturnsParsedAuthorities_WhenUserHasAuthorities() {
+
+        final var user = DevDojoUser.builder().authorities("ROLE_USER,ROLE_ADMIN").build();
+
+        assertThat(user.getAuthorities())
+                .isSameAs(GrantedAuthorities.fromCommaSeparated("ROLE_USER,ROLE_ADMIN"));
+    }
+
+    @Test
+    @DisplayName("getAuthorities of DevDojoUser follows the authorities set on the user")
+    void getAuthorities_ReturnsNewAuthorities_WhenAuthoritiesAreSet() {
+
+        final var user = DevDojoUser.builder().authorities("ROLE_USER").build();
+        user.setAuthorities("ROLE_USER,ROLE_ADMIN");
+
+        assertThat(user.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+    }
+}
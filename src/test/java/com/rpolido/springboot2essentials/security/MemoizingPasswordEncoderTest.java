@@ -0,0 +1,58 @@
+package com.rpolido.springboot2essentials.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for Memoizing Password Encoder")
+class MemoizingPasswordEncoderTest {
+
+    private static final String ENCODED_ACADEMY = "{bcrypt}$2a$10$NRjAwXNf73/SRdliAt9ebOZlmLo1ZbYwKKBQzM9GSwvV6raag5QkG";
+
+    private MemoizingPasswordEncoder passwordEncoder;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordEncoder = new MemoizingPasswordEncoder(100, Duration.ofMinutes(5), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("matches remembers the check when the password is right")
+    void matches_RemembersCheck_WhenPasswordIsRight() {
+
+        assertThat(passwordEncoder.matches("academy", ENCODED_ACADEMY)).isTrue();
+        assertThat(passwordEncoder.matches("academy", ENCODED_ACADEMY)).isTrue();
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "credentials-memo").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.credentials.time.saved").counter().count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("matches returns false every time when the password is wrong")
+    void matches_ReturnsFalse_WhenPasswordIsWrong() {
+
+        assertThat(passwordEncoder.matches("wrong", ENCODED_ACADEMY)).isFalse();
+        assertThat(passwordEncoder.matches("wrong", ENCODED_ACADEMY)).isFalse();
+
+        assertThat(meterRegistry.get("auth.credentials.time.saved").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("matches does not reuse the check when the stored hash changes")
+    void matches_DoesNotReuseCheck_WhenStoredHashChanges() {
+
+        final var newHash = passwordEncoder.encode("new-password");
+
+        assertThat(passwordEncoder.matches("academy", ENCODED_ACADEMY)).isTrue();
+        assertThat(passwordEncoder.matches("academy", newHash)).isFalse();
+    }
+}
@@ -1,24 +1,51 @@
 package com.rpolido.springboot2essentials.service;
 
+import com.rpolido.springboot2essentials.cache.AnimeCache;
+import com.rpolido.springboot2essentials.controller.dto.AnimeBulkItemResultDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeLookupItemDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeSearchHitDTO;
+import com.rpolido.springboot2essentials.controller.dto.AnimeUpdateDTO;
 import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.event.AnimeChangedEvent;
 import com.rpolido.springboot2essentials.exception.BadRequestException;
+import com.rpolido.springboot2essentials.exception.PreconditionFailedException;
+import com.rpolido.springboot2essentials.metrics.AnimeMetrics;
 import com.rpolido.springboot2essentials.repository.AnimeRepository;
+import com.rpolido.springboot2essentials.repository.projection.AnimeSummary;
+import com.rpolido.springboot2essentials.search.AnimeSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
-
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidAnime;
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidAnimeSummary;
+import static com.rpolido.springboot2essentials.util.AnimeCreator.createValidUpdatedAnime;
 import static com.rpolido.springboot2essentials.util.AnimeInsertDTOCreator.createAnimeInsertDTO;
 import static com.rpolido.springboot2essentials.util.AnimeUpdateDTOCreator.createAnimeUpdateDTO;
 import static org.assertj.core.api.Assertions.*;
@@ -27,33 +54,92 @@ import static org.mockito.ArgumentMatchers.*;
 @ExtendWith(SpringExtension.class)
 class AnimeServiceTest {
 
-    @InjectMocks
     private AnimeService service;
 
     @Mock
     private AnimeRepository repository;
 
+    @Mock
+    private AnimeCache animeCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private AnimeSearchIndex searchIndex;
+
     @BeforeEach
     void setup() {
 
-        final var animePage = new PageImpl<>(List.of(createValidAnime()));
-        BDDMockito.when(repository.findAll(any(PageRequest.class))).
+        service = new AnimeService(repository, animeCache, eventPublisher, validator, transactionTemplate, searchIndex,
+                new AnimeMetrics(new SimpleMeterRegistry()), 2, 3);
+
+        BDDMockito.when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        BDDMockito.when(repository.insertAllInBatch(anyList()))
+                .thenAnswer(invocation -> {
+                    final List<Anime> animes = invocation.getArgument(0);
+                    for (var i = 0; i < animes.size(); i++) {
+                        animes.get(i).setId(i + 1L);
+                    }
+                    return animes;
+                });
+
+        final var animePage = new PageImpl<>(List.of(createValidAnimeSummary()));
+        BDDMockito.when(repository.findAllSummaries(any(PageRequest.class))).
                 thenReturn(animePage);
 
-        BDDMockito.when(repository.findAll()).
-                thenReturn(List.of(createValidAnime()));
+        BDDMockito.when(repository.findSummariesAfter(anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(createValidAnimeSummary())));
+
+        BDDMockito.when(repository.findAllSummaries()).
+                thenReturn(List.of(createValidAnimeSummary()));
 
         BDDMockito.when(repository.findById(anyLong()))
                 .thenReturn(Optional.of(createValidAnime()));
 
+        BDDMockito.when(animeCache.get(anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Function<Long, Optional<Anime>>>getArgument(1)
+                        .apply(invocation.getArgument(0)));
+
+        BDDMockito.when(repository.streamAllSummaries())
+                .thenAnswer(invocation -> Stream.of(createValidAnimeSummary()));
+
+        final var hit = AnimeSearchHitDTO.builder().id(1L).name(createValidAnime().getName()).score(3).build();
+        BDDMockito.when(searchIndex.search(anyString(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(hit)));
+
         BDDMockito.when(repository.findByName(anyString()))
                 .thenReturn(List.of(createValidAnime()));
 
         BDDMockito.when(repository.save(any(Anime.class)))
                 .thenReturn(createValidAnime());
 
+        BDDMockito.when(repository.saveAndFlush(any(Anime.class)))
+                .thenReturn(createValidUpdatedAnime());
+
         BDDMockito.doNothing().when(repository).delete(any(Anime.class));
 
+        BDDMockito.when(repository.findExistingIds(anyCollection()))
+                .thenReturn(List.of(1L));
+
+        BDDMockito.when(repository.updateNamesInBatch(anyList()))
+                .thenAnswer(invocation -> {
+                    final var updateCounts = new int[invocation.<List<Anime>>getArgument(0).size()];
+                    Arrays.fill(updateCounts, 1);
+                    return updateCounts;
+                });
+
+        BDDMockito.when(repository.deleteByIdIn(anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).size());
+
     }
 
     @Test
@@ -67,7 +153,21 @@ class AnimeServiceTest {
         assertThat(animePage.toList()).isNotEmpty()
                 .hasSize(1);
 
-        assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
+        assertThat(animePage.toList().get(0).name()).isEqualTo(expectedName);
+    }
+
+    @Test
+    @DisplayName("ListAfter returns slice of anime after the given id when successful")
+    void listAfter_ReturnsSliceOfAnimes_WhenSuccessful() {
+
+        final var expectedName = createValidAnime().getName();
+        final var animeSlice = service.listAfter(0L, 5);
+
+        assertThat(animeSlice).isNotNull();
+        assertThat(animeSlice.getContent()).isNotEmpty()
+                .hasSize(1);
+
+        assertThat(animeSlice.getContent().get(0).name()).isEqualTo(expectedName);
     }
 
     @Test
@@ -81,7 +181,17 @@ class AnimeServiceTest {
         assertThat(animes).isNotEmpty()
                 .hasSize(1);
 
-        assertThat(animes.get(0).getName()).isEqualTo(expectedName);
+        assertThat(animes.get(0).name()).isEqualTo(expectedName);
+    }
+
+    @Test
+    @DisplayName("streamAll hands every anime to the consumer when successful")
+    void streamAll_ConsumesAnimes_WhenSuccessful() {
+
+        final var animes = new ArrayList<AnimeSummary>();
+        service.streamAll(animes::add);
+
+        assertThat(animes).containsExactly(createValidAnimeSummary());
     }
 
     @Test
@@ -110,6 +220,43 @@ class AnimeServiceTest {
 
     }
 
+    @Test
+    @DisplayName("findAllById returns an item per id in request order, marking the ids not found")
+    void findAllById_ReturnsItemsInRequestOrder_WhenSomeAnimesAreNotFound() {
+
+        BDDMockito.when(animeCache.getAll(anyCollection(), any()))
+                .thenReturn(Map.of(1L, Optional.of(createValidAnime()), 2L, Optional.empty()));
+
+        final var items = service.findAllById(List.of(2L, 1L, 2L));
+
+        assertThat(items).extracting(AnimeLookupItemDTO::getId).containsExactly(2L, 1L, 2L);
+        assertThat(items).extracting(AnimeLookupItemDTO::getStatus).containsExactly(
+                AnimeLookupItemDTO.Status.NOT_FOUND, AnimeLookupItemDTO.Status.FOUND, AnimeLookupItemDTO.Status.NOT_FOUND);
+        assertThat(items.get(1).getAnime()).isEqualTo(createValidAnime());
+    }
+
+    @Test
+    @DisplayName("findAllById throws BadRequestException when there are more ids than allowed")
+    void findAllById_ThrowsBadRequestException_WhenTooManyIds() {
+
+        assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> service.findAllById(List.of(1L, 2L, 3L, 4L)));
+
+        BDDMockito.verifyNoInteractions(animeCache);
+    }
+
+    @Test
+    @DisplayName("search returns ranked hits from the search index when successful")
+    void search_ReturnsHitsFromSearchIndex_WhenSuccessful() {
+
+        final var hits = service.search("ippo", PageRequest.of(0, 10));
+
+        assertThat(hits.getContent()).hasSize(1);
+        assertThat(hits.getContent().get(0).getName()).isEqualTo(createValidAnime().getName());
+
+        BDDMockito.verifyNoInteractions(repository);
+    }
+
     @Test
     @DisplayName("findByName returns list of anime when successful")
     void findByName_ReturnListOfAnime_WhenSuccessful() {
@@ -128,6 +275,10 @@ class AnimeServiceTest {
     @DisplayName("findByName returns an empty list of anime when anime is not found")
     void findByName_ReturnEmtpyListOfAnime_WhenAnimeIsNotFound() {
 
+        final var hit = AnimeSearchHitDTO.builder().id(1L).name(createValidAnime().getName()).score(3).build();
+        BDDMockito.when(searchIndex.search(anyString(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(hit)));
+
         BDDMockito.when(repository.findByName(anyString()))
                 .thenReturn(Collections.emptyList());
 
@@ -146,15 +297,73 @@ class AnimeServiceTest {
 
         assertThat(anime).isNotNull().isEqualTo(createValidAnime());
 
+        BDDMockito.verify(eventPublisher).publishEvent(AnimeChangedEvent.saved(List.of(createValidAnime())));
+    }
+
+    @Test
+    @DisplayName("saveAll inserts animes in chunks and returns one result per item when successful")
+    void saveAll_InsertsInChunksAndReturnsResultPerItem_WhenSuccessful() {
+
+        final var results = service.saveAll(List.of(createAnimeInsertDTO(), createAnimeInsertDTO(), createAnimeInsertDTO()).iterator());
+
+        assertThat(results).hasSize(3)
+                .extracting(AnimeBulkItemResultDTO::getIndex, AnimeBulkItemResultDTO::getStatus)
+                .containsExactly(
+                        tuple(0, AnimeBulkItemResultDTO.Status.CREATED),
+                        tuple(1, AnimeBulkItemResultDTO.Status.CREATED),
+                        tuple(2, AnimeBulkItemResultDTO.Status.CREATED));
+
+        assertThat(results).allSatisfy(result -> assertThat(result.getId()).isNotNull());
+
+        BDDMockito.verify(repository, BDDMockito.times(2)).insertAllInBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("saveAll reports a null anime as invalid and inserts the others")
+    void saveAll_ReportsNullAnimeAsInvalid_WhenItemIsNull() {
+
+        final var results = service.saveAll(Arrays.asList(createAnimeInsertDTO(), null).iterator());
+
+        assertThat(results)
+                .extracting(AnimeBulkItemResultDTO::getIndex, AnimeBulkItemResultDTO::getStatus, AnimeBulkItemResultDTO::getMessage)
+                .containsExactly(
+                        tuple(0, AnimeBulkItemResultDTO.Status.CREATED, null),
+                        tuple(1, AnimeBulkItemResultDTO.Status.INVALID, "The anime cannot be null"));
+
+        BDDMockito.verify(validator, BDDMockito.never()).validate(isNull());
     }
 
     @Test
     @DisplayName("replace updates anime when successful")
     void replace_UpdatesAnime_WhenSuccessful() {
 
-        assertThatCode(() -> service.replace(createAnimeUpdateDTO()))
+        assertThatCode(() -> service.replace(createAnimeUpdateDTO(), null))
                 .doesNotThrowAnyException();
 
+        assertThat(service.replace(createAnimeUpdateDTO(), 0L).getVersion()).isEqualTo(1L);
+
+    }
+
+    @Test
+    @DisplayName("replace throws PreconditionFailedException when the required version is not the current one")
+    void replace_ThrowsPreconditionFailedException_WhenVersionChanged() {
+
+        assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> service.replace(createAnimeUpdateDTO(), 5L));
+
+        BDDMockito.verify(repository, BDDMockito.never()).saveAndFlush(any(Anime.class));
+    }
+
+    @Test
+    @DisplayName("findVersion returns the cached version without querying the database")
+    void findVersion_ReturnsCachedVersion_WhenAnimeIsCached() {
+
+        BDDMockito.when(animeCache.getVersionIfPresent(1L))
+                .thenReturn(Optional.of(3L));
+
+        assertThat(service.findVersion(1L)).contains(3L);
+
+        BDDMockito.verify(repository, BDDMockito.never()).findVersionById(anyLong());
     }
 
     @Test
@@ -164,5 +373,80 @@ class AnimeServiceTest {
         assertThatCode(() -> service.delete(1))
                 .doesNotThrowAnyException();
 
+        BDDMockito.verify(eventPublisher).publishEvent(AnimeChangedEvent.deleted(List.of(1L)));
+    }
+
+    @Test
+    @DisplayName("replaceAll updates existing animes in one batch and reports missing ids when successful")
+    void replaceAll_UpdatesExistingAndReportsNotFound_WhenSuccessful() {
+
+        final var result = service.replaceAll(List.of(
+                createAnimeUpdateDTO(),
+                AnimeUpdateDTO.builder().id(2L).name("Overlord").build()));
+
+        assertThat(result.getAffected()).isEqualTo(1);
+        assertThat(result.getNotFound()).containsExactly(2L);
+
+        BDDMockito.verify(repository).updateNamesInBatch(List.of(Anime.builder()
+                .id(1L).name(createAnimeUpdateDTO().getName()).build()));
+        BDDMockito.verify(repository, BDDMockito.never()).save(any(Anime.class));
+        BDDMockito.verify(eventPublisher).publishEvent(any(AnimeChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("replaceAll reports animes deleted before the batch update ran as not found")
+    void replaceAll_ReportsNotFound_WhenAnimeIsDeletedBeforeUpdate() {
+
+        BDDMockito.when(repository.findExistingIds(anyCollection()))
+                .thenReturn(List.of(1L, 2L));
+        BDDMockito.when(repository.updateNamesInBatch(anyList()))
+                .thenReturn(new int[]{1, 0});
+
+        final var result = service.replaceAll(List.of(
+                createAnimeUpdateDTO(),
+                AnimeUpdateDTO.builder().id(2L).name("Overlord").build()));
+
+        assertThat(result.getAffected()).isEqualTo(1);
+        assertThat(result.getNotFound()).containsExactly(2L);
+
+        final var event = ArgumentCaptor.forClass(AnimeChangedEvent.class);
+        BDDMockito.verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getIds()).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("replaceAll reports invalid animes by index and renames the valid ones")
+    void replaceAll_ReportsInvalidAnimes_WhenNameIsEmpty() {
+
+        final var invalidAnime = AnimeUpdateDTO.builder().id(2L).name("").build();
+        @SuppressWarnings("unchecked")
+        final ConstraintViolation<AnimeUpdateDTO> violation = BDDMockito.mock(ConstraintViolation.class);
+        BDDMockito.when(violation.getMessage()).thenReturn("The anime name cannot be empty");
+        BDDMockito.when(validator.validate(invalidAnime)).thenReturn(Set.of(violation));
+
+        final var result = service.replaceAll(Arrays.asList(invalidAnime, createAnimeUpdateDTO(), null));
+
+        assertThat(result.getAffected()).isEqualTo(1);
+        assertThat(result.getInvalid())
+                .extracting(AnimeBulkItemResultDTO::getIndex, AnimeBulkItemResultDTO::getId, AnimeBulkItemResultDTO::getMessage)
+                .containsExactly(
+                        tuple(0, 2L, "The anime name cannot be empty"),
+                        tuple(2, null, "The anime cannot be null"));
+
+        BDDMockito.verify(repository).updateNamesInBatch(List.of(Anime.builder()
+                .id(1L).name(createAnimeUpdateDTO().getName()).build()));
+    }
+
+    @Test
+    @DisplayName("deleteAll removes existing animes in one statement and reports missing ids when successful")
+    void deleteAll_RemovesExistingAndReportsNotFound_WhenSuccessful() {
+
+        final var result = service.deleteAll(List.of(1L, 2L));
+
+        assertThat(result.getAffected()).isEqualTo(1);
+        assertThat(result.getNotFound()).containsExactly(2L);
+
+        BDDMockito.verify(repository, BDDMockito.never()).delete(any(Anime.class));
+        BDDMockito.verify(eventPublisher).publishEvent(AnimeChangedEvent.deleted(List.of(1L)));
     }
-}
\ No newline at end of file
+}
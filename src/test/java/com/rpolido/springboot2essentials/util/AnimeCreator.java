@@ -1,6 +1,7 @@
 package com.rpolido.springboot2essentials.util;
 
 import com.rpolido.springboot2essentials.domain.Anime;
+import com.rpolido.springboot2essentials.repository.projection.AnimeSummary;
 
 public class AnimeCreator {
 
@@ -14,13 +15,19 @@ public class AnimeCreator {
         return Anime.builder()
                 .id(1L)
                 .name("Hajime no Ippo")
+                .version(0L)
                 .build();
     }
 
+    public static AnimeSummary createValidAnimeSummary() {
+        return new AnimeSummary(1L, "Hajime no Ippo", 0L);
+    }
+
     public static Anime createValidUpdatedAnime() {
         return Anime.builder()
                 .id(1L)
                 .name("Hajime no Ippo 2")
+                .version(1L)
                 .build();
     }
 
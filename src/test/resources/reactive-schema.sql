@@ -0,0 +1,22 @@
+create table if not exists anime (
+    id bigint auto_increment primary key,
+    name varchar(255) not null,
+    version bigint not null
+);
+
+create table if not exists dev_dojo_user (
+    id bigint auto_increment primary key,
+    name varchar(255),
+    username varchar(255),
+    password varchar(255),
+    authorities varchar(255)
+);
+
+create table if not exists entity_change (
+    id bigint auto_increment primary key,
+    node_id varchar(64) not null,
+    entity varchar(32) not null,
+    change_type varchar(16) not null,
+    entity_ids varchar(4000) not null,
+    created_at timestamp not null
+);